@@ -0,0 +1,294 @@
+package com.chtrembl.petstoreapp.config;
+
+import ch.qos.logback.classic.LoggerContext;
+import com.chtrembl.petstoreapp.client.OrderServiceClient;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.User;
+import com.chtrembl.petstoreapp.model.WebRequest;
+import feign.Request;
+import feign.RequestInterceptor;
+import feign.RequestTemplate;
+import feign.Target;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.chtrembl.petstoreapp.config.Constants.AUTH_TYPE;
+import static com.chtrembl.petstoreapp.config.Constants.CACHE_CONTROL;
+import static com.chtrembl.petstoreapp.config.Constants.CONTAINER_HOST;
+import static com.chtrembl.petstoreapp.config.Constants.IS_AUTHENTICATED;
+import static com.chtrembl.petstoreapp.config.Constants.REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.REQUEST_METHOD;
+import static com.chtrembl.petstoreapp.config.Constants.REQUEST_URI;
+import static com.chtrembl.petstoreapp.config.Constants.SPAN_ID;
+import static com.chtrembl.petstoreapp.config.Constants.TRACE_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_AUTHENTICATED;
+import static com.chtrembl.petstoreapp.config.Constants.X_AUTH_TYPE;
+import static com.chtrembl.petstoreapp.config.Constants.X_CORRELATION_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_HTTP_SESSION_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_PARENT_SPAN_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_METHOD;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_TIMESTAMP;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_URI;
+import static com.chtrembl.petstoreapp.config.Constants.X_SESSION_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_SESSION_ID_LOWERCASE;
+import static com.chtrembl.petstoreapp.config.Constants.X_SOURCE_CONTAINER;
+import static com.chtrembl.petstoreapp.config.Constants.X_SOURCE_SERVICE;
+import static com.chtrembl.petstoreapp.config.Constants.X_SOURCE_VERSION;
+import static com.chtrembl.petstoreapp.config.Constants.X_TARGET_SERVICE;
+import static com.chtrembl.petstoreapp.config.Constants.X_TRACE_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_USER_EMAIL;
+import static com.chtrembl.petstoreapp.config.Constants.X_USER_NAME;
+
+/**
+ * Cost of the Feign request interceptor that stamps every downstream call with the static,
+ * session, correlation and user headers, inside a page request and from background work
+ * with no request bound. Run with {@code -prof gc} to see the allocation per call.
+ * <p>
+ * The {@code baseline} variant is the interceptor as it was before its per-call work was
+ * trimmed. Logging runs at the application's INFO level with no appenders, so disabled log
+ * statements cost what they do in production while log output is left out of the timings.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FeignInterceptorBenchmark {
+
+    private static final Target<OrderServiceClient> TARGET =
+            new Target.HardCodedTarget<>(OrderServiceClient.class, "orderservice", "http://localhost:8080");
+
+    @Param({"current", "baseline"})
+    public String interceptorVariant;
+
+    @Param({"true", "false"})
+    public boolean requestBound;
+
+    private RequestInterceptor interceptor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ContainerEnvironment containerEnvironment = new ContainerEnvironment();
+        containerEnvironment.setAppDate("2025-01-01");
+        containerEnvironment.setAppVersion("1.0.0");
+        containerEnvironment.setContainerHostName("petstoreapp-0");
+
+        User sessionUser = new User();
+        sessionUser.setContainerEnvironment(containerEnvironment);
+        sessionUser.setSessionId("5F2B0C9A1E7D4A3B8C6D0E1F2A3B4C5D");
+        sessionUser.setName("alice");
+        sessionUser.setEmail("alice@example.com");
+
+        WebRequest webRequest = new WebRequest();
+        webRequest.addHeader("User-Agent", "Mozilla/5.0");
+        webRequest.addHeader("Accept-Language", "en-US");
+
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.reset();
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(ch.qos.logback.classic.Level.INFO);
+
+        this.interceptor = "baseline".equals(this.interceptorVariant)
+                ? new BaselineRequestInterceptor(webRequest, sessionUser)
+                : new FeignConfig(webRequest, sessionUser).requestInterceptor();
+
+        if (this.requestBound) {
+            MockHttpServletRequest request = new MockHttpServletRequest("GET", "/dogbreeds");
+            RequestDeadline.set(request, System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+            RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+            MDC.put(REQUEST_ID, "1a2b3c4d");
+            MDC.put(TRACE_ID, "4bf92f3577b34da6a3ce929d0e0e4736");
+            MDC.put(SPAN_ID, "00f067aa0ba902b7");
+            MDC.put(REQUEST_URI, "/dogbreeds");
+            MDC.put(REQUEST_METHOD, "GET");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+    }
+
+    @Benchmark
+    public RequestTemplate apply() {
+        RequestTemplate template = new RequestTemplate();
+        template.method(Request.HttpMethod.GET);
+        template.uri("/petstoreorderservice/v2/store/order/5F2B0C9A1E7D4A3B8C6D0E1F2A3B4C5D");
+        template.feignTarget(TARGET);
+        this.interceptor.apply(template);
+        return template;
+    }
+
+    /**
+     * The request interceptor before its static headers were precomputed and its per-call logging
+     * and lookups trimmed, kept only to compare against.
+     */
+    private static final class BaselineRequestInterceptor implements RequestInterceptor {
+
+        private static final Logger log = LoggerFactory.getLogger(FeignConfig.class);
+
+        private final WebRequest webRequest;
+        private final User sessionUser;
+
+        BaselineRequestInterceptor(WebRequest webRequest, User sessionUser) {
+            this.webRequest = webRequest;
+            this.sessionUser = sessionUser;
+        }
+
+        @Override
+        public void apply(RequestTemplate template) {
+            boolean requestBound = RequestContextHolder.getRequestAttributes() != null;
+
+            if (requestBound) {
+                this.webRequest.getHeaders().forEach((key, values) -> {
+                    values.forEach(value -> template.header(key, value));
+                });
+            }
+
+            template.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+            template.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+            template.header(CACHE_CONTROL, "no-cache");
+
+            if (requestBound) {
+                addSessionHeaders(template);
+            }
+            addCorrelationHeaders(template);
+            if (requestBound) {
+                addUserContextHeaders(template);
+            }
+            addServiceHeaders(template);
+
+            template.header(X_REQUEST_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+
+            String requestId = MDC.get(REQUEST_ID);
+            String traceId = MDC.get(TRACE_ID);
+            String targetService = template.feignTarget().name();
+
+            log.info("Outgoing Feign request: {} {} [RequestID: {}, TraceID: {}, Target: {}]",
+                    template.method(), template.url(), requestId, traceId, targetService);
+
+            log.debug("Applied headers to Feign request: {} {}",
+                    template.method(), template.url());
+            log.debug("All headers: {}", template.headers());
+        }
+
+        private void addSessionHeaders(RequestTemplate template) {
+            if (this.sessionUser != null && StringUtils.hasText(this.sessionUser.getSessionId())) {
+                template.header(X_SESSION_ID, this.sessionUser.getSessionId());
+                template.header(X_SESSION_ID_LOWERCASE, this.sessionUser.getSessionId());
+                log.debug("Added session ID header: {}", this.sessionUser.getSessionId());
+            }
+
+            try {
+                ServletRequestAttributes attributes =
+                        (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+                String sessionId = attributes.getRequest().getSession().getId();
+                if (StringUtils.hasText(sessionId)) {
+                    template.header(X_HTTP_SESSION_ID, sessionId);
+                }
+            } catch (Exception e) {
+                log.debug("Could not extract HTTP session ID: {}", e.getMessage());
+            }
+        }
+
+        private void addCorrelationHeaders(RequestTemplate template) {
+            String requestId = MDC.get(REQUEST_ID);
+            if (StringUtils.hasText(requestId)) {
+                template.header(X_REQUEST_ID, requestId);
+                template.header(X_CORRELATION_ID, requestId);
+            } else {
+                String newRequestId = UUID.randomUUID().toString().substring(0, 8);
+                template.header(X_REQUEST_ID, newRequestId);
+                template.header(X_CORRELATION_ID, newRequestId);
+                log.debug("Generated new request ID: {}", newRequestId);
+            }
+
+            String traceId = MDC.get(TRACE_ID);
+            if (StringUtils.hasText(traceId)) {
+                template.header(X_TRACE_ID, traceId);
+            }
+
+            String spanId = MDC.get(SPAN_ID);
+            if (StringUtils.hasText(spanId)) {
+                template.header(X_PARENT_SPAN_ID, spanId);
+            }
+        }
+
+        private void addUserContextHeaders(RequestTemplate template) {
+            if (this.sessionUser != null) {
+                if (StringUtils.hasText(this.sessionUser.getName())) {
+                    template.header(X_USER_NAME, this.sessionUser.getName());
+                }
+
+                if (StringUtils.hasText(this.sessionUser.getEmail())) {
+                    template.header(X_USER_EMAIL, this.sessionUser.getEmail());
+                }
+
+                String authType = MDC.get(AUTH_TYPE);
+                if (StringUtils.hasText(authType)) {
+                    template.header(X_AUTH_TYPE, authType);
+                }
+
+                String isAuthenticated = MDC.get(IS_AUTHENTICATED);
+                if (StringUtils.hasText(isAuthenticated)) {
+                    template.header(X_AUTHENTICATED, isAuthenticated);
+                }
+            }
+        }
+
+        private void addServiceHeaders(RequestTemplate template) {
+            template.header(X_SOURCE_SERVICE, "petstoreapp");
+            template.header(X_SOURCE_VERSION, getAppVersion());
+
+            String targetService = template.feignTarget().name();
+            template.header(X_TARGET_SERVICE, targetService);
+
+            template.header(X_REQUEST_URI, MDC.get(REQUEST_URI));
+            template.header(X_REQUEST_METHOD, MDC.get(REQUEST_METHOD));
+
+            String containerHost = MDC.get(CONTAINER_HOST);
+            if (StringUtils.hasText(containerHost)) {
+                template.header(X_SOURCE_CONTAINER, containerHost);
+            }
+        }
+
+        private String getAppVersion() {
+            String version = System.getProperty("app.version");
+            if (StringUtils.hasText(version)) {
+                return version;
+            }
+
+            Package pkg = this.getClass().getPackage();
+            if (pkg != null && pkg.getImplementationVersion() != null) {
+                return pkg.getImplementationVersion();
+            }
+
+            return "unknown";
+        }
+    }
+}
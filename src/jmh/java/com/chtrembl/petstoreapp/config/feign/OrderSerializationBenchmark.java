@@ -0,0 +1,84 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.model.Order;
+import com.chtrembl.petstoreapp.model.Product;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import feign.RequestTemplate;
+import feign.codec.Encoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of serializing one cart update: the {@link OrderEncoder} writing bytes with the
+ * shared writer, against the previous path of a new ObjectMapper per update writing a String
+ * that was then encoded again. Run with {@code -prof gc} for the allocation per update
+ * ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderSerializationBenchmark {
+
+    @Param({"1", "10"})
+    public int products;
+
+    private Order order;
+    private OrderEncoder encoder;
+
+    @Setup
+    public void setUp() {
+        Order update = new Order();
+        update.setId("5F2B0C9A1E7D4A3B8C6D0E1F2A3B4C5D");
+        update.setEmail("alice@example.com");
+        List<Product> deltas = new ArrayList<>(this.products);
+        for (int i = 0; i < this.products; i++) {
+            Product product = new Product();
+            product.setId(1000L + i);
+            product.setQuantity(1 + i % 3);
+            deltas.add(product);
+        }
+        update.setProducts(deltas);
+        this.order = update;
+
+        Encoder unused = (object, bodyType, template) -> {
+            throw new IllegalStateException("Only orders are encoded here");
+        };
+        this.encoder = new OrderEncoder(OrderEncoder.createOrderWriter(), unused);
+    }
+
+    @Benchmark
+    public byte[] sharedWriter() {
+        RequestTemplate template = new RequestTemplate();
+        this.encoder.encode(this.order, Order.class, template);
+        return template.body();
+    }
+
+    @Benchmark
+    public byte[] mapperPerUpdate() throws Exception {
+        String json = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
+                .configure(SerializationFeature.FAIL_ON_SELF_REFERENCES, false)
+                .writeValueAsString(this.order);
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,6 +1,7 @@
 package com.chtrembl.petstoreapp.client;
 
 import com.chtrembl.petstoreapp.config.FeignConfig;
+import com.chtrembl.petstoreapp.config.feign.Hedged;
 import com.chtrembl.petstoreapp.model.Order;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,8 +17,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 public interface OrderServiceClient {
 
     @PostMapping("/petstoreorderservice/v2/store/order")
-    Order createOrUpdateOrder(@RequestBody String orderJson);
+    Order createOrUpdateOrder(@RequestBody Order order);
 
+    @Hedged
     @GetMapping("/petstoreorderservice/v2/store/order/{orderId}")
     Order getOrder(@PathVariable("orderId") String orderId);
 
@@ -1,13 +1,13 @@
 package com.chtrembl.petstoreapp.client;
 
 import com.chtrembl.petstoreapp.config.FeignConfig;
-import com.chtrembl.petstoreapp.model.Pet;
+import com.chtrembl.petstoreapp.config.feign.Coalesced;
+import com.chtrembl.petstoreapp.config.feign.Hedged;
+import com.chtrembl.petstoreapp.model.PetCatalog;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.List;
-
 @FeignClient(
         name = "pet-service",
         url = "${petstore.service.pet.url}",
@@ -15,8 +15,10 @@ import java.util.List;
 )
 public interface PetServiceClient {
 
+    @Coalesced
+    @Hedged
     @GetMapping("/petstorepetservice/v2/pet/findByStatus")
-    List<Pet> getPetsByStatus(@RequestParam("status") String status);
+    PetCatalog getPetsByStatus(@RequestParam("status") String status);
 
     @GetMapping("/petstorepetservice/v2/health")
     String getHealth();
@@ -1,13 +1,13 @@
 package com.chtrembl.petstoreapp.client;
 
 import com.chtrembl.petstoreapp.config.FeignConfig;
-import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.config.feign.Coalesced;
+import com.chtrembl.petstoreapp.config.feign.Hedged;
+import com.chtrembl.petstoreapp.model.ProductIndex;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import java.util.List;
-
 @FeignClient(
         name = "product-service",
         url = "${petstore.service.product.url}",
@@ -15,8 +15,10 @@ import java.util.List;
 )
 public interface ProductServiceClient {
 
+    @Coalesced
+    @Hedged
     @GetMapping("/petstoreproductservice/v2/product/findByStatus")
-    List<Product> getProductsByStatus(@RequestParam("status") String status);
+    ProductIndex getProductsByStatus(@RequestParam("status") String status);
 
     @GetMapping("/petstoreproductservice/v2/health")
     String getHealth();
@@ -0,0 +1,53 @@
+package com.chtrembl.petstoreapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors for downstream calls made off the request thread: the page fan-out and
+ * the attempts of hedged Feign calls. With {@code spring.threads.virtual.enabled} their
+ * tasks run on virtual threads; the pool sizes still bound how many run at once.
+ */
+@Configuration
+public class AsyncConfig {
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean
+    public ThreadPoolTaskExecutor petStoreFanOutExecutor(
+            @Value("${petstore.async.fan-out.core-pool-size:16}") int corePoolSize,
+            @Value("${petstore.async.fan-out.max-pool-size:64}") int maxPoolSize,
+            @Value("${petstore.async.fan-out.queue-capacity:256}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("petstore-fanout-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
+        // When saturated, a page's calls run one after another on the request thread instead of failing
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(new RequestContextTaskDecorator());
+        return executor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor petStoreHedgeExecutor(
+            @Value("${petstore.async.hedge.core-pool-size:16}") int corePoolSize,
+            @Value("${petstore.async.hedge.max-pool-size:64}") int maxPoolSize,
+            @Value("${petstore.async.hedge.queue-capacity:0}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("petstore-hedge-");
+        executor.setVirtualThreads(virtualThreads);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        // No queue by default: a hedge that cannot start right away is not sent
+        executor.setQueueCapacity(queueCapacity);
+        executor.setTaskDecorator(new RequestContextTaskDecorator());
+        return executor;
+    }
+}
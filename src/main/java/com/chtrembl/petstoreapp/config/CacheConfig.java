@@ -1,6 +1,11 @@
 package com.chtrembl.petstoreapp.config;
 
+import com.chtrembl.petstoreapp.model.Order;
+import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
@@ -27,4 +32,20 @@ public class CacheConfig {
         caffeineCacheManager.setCaffeine(caffeine);
         return caffeineCacheManager;
     }
+
+    /**
+     * Per-session order cache, keyed by session id. Filled from order service responses
+     * so the cart page does not have to re-fetch an order that was just written.
+     */
+    @Bean
+    public Cache<String, Order> sessionOrderCache(MeterRegistry meterRegistry,
+                                                  @Value("${petstore.order.cache.ttl-seconds:120}") long ttlSeconds,
+                                                  @Value("${petstore.order.cache.maximum-size:10000}") long maximumSize) {
+        Cache<String, Order> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+        return CaffeineCacheMetrics.monitor(meterRegistry, cache, "sessionOrders");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,41 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings shared by the pet and product catalog caches.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.catalog.cache")
+@Getter
+@Setter
+public class CatalogCacheProperties {
+
+    /**
+     * Seconds after which a cached catalog expires.
+     */
+    private long ttlSeconds = 300;
+
+    /**
+     * Seconds after which a cached catalog is refreshed in the background on access.
+     */
+    private long refreshAfterSeconds = 60;
+
+    /**
+     * Oldest catalog, in seconds, that may still be served when the downstream service fails.
+     */
+    private long maxStalenessSeconds = 3600;
+
+    /**
+     * First delay before retrying a failed catalog load in the background.
+     */
+    private long retryInitialBackoffMs = 1000;
+
+    /**
+     * Upper bound for the exponential background retry delay.
+     */
+    private long retryMaxBackoffMs = 30000;
+}
@@ -27,6 +27,7 @@ public final class Constants {
     public static final String USER_NAME = "userName";
 
     // Service operation constants
+    public static final String CATALOG_AGE = "catalogAge";
     public static final String CATEGORY = "category";
     public static final String COMPLETE_ORDER = "completeOrder";
     public static final String OPERATION = "operation";
@@ -57,6 +58,7 @@ public final class Constants {
     public static final String REFERER_HEADER = "Referer";
     public static final String CACHE_CONTROL = "Cache-Control";
     public static final String X_REQUEST_TIMESTAMP = "X-Request-Timestamp";
+    public static final String X_REQUEST_DEADLINE = "X-Request-Deadline";
     public static final String X_SESSION_ID = "X-Session-ID";
     public static final String X_SESSION_ID_LOWERCASE = "X-Session-Id";
     public static final String X_HTTP_SESSION_ID = "X-Http-Session-ID";
@@ -0,0 +1,47 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time budget of a page request, shared by all downstream calls it makes.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.deadline")
+@Getter
+@Setter
+public class DeadlineProperties {
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * Whether requests get a deadline at all.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Budget in milliseconds for requests matching none of the routes.
+     */
+    private long defaultMs = 8000;
+
+    /**
+     * Budget in milliseconds by Ant-style path pattern; the first matching pattern wins.
+     */
+    private Map<String, Long> routes = new LinkedHashMap<>();
+
+    public long budgetFor(String path) {
+        for (Map.Entry<String, Long> route : routes.entrySet()) {
+            if (PATH_MATCHER.match(route.getKey(), path)) {
+                return route.getValue();
+            }
+        }
+        return defaultMs;
+    }
+}
@@ -1,22 +1,55 @@
 package com.chtrembl.petstoreapp.config;
 
+import com.chtrembl.petstoreapp.config.feign.AdaptiveLimitCapability;
+import com.chtrembl.petstoreapp.config.feign.CatalogStreamingDecoder;
+import com.chtrembl.petstoreapp.config.feign.DeadlineCapability;
+import com.chtrembl.petstoreapp.config.feign.HedgingCapability;
+import com.chtrembl.petstoreapp.config.feign.IsolationCapability;
+import com.chtrembl.petstoreapp.config.feign.LatencyCapability;
+import com.chtrembl.petstoreapp.config.feign.OrderEncoder;
+import com.chtrembl.petstoreapp.config.feign.SingleFlightCapability;
 import com.chtrembl.petstoreapp.model.User;
 import com.chtrembl.petstoreapp.model.WebRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import feign.Capability;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
+import feign.codec.Decoder;
+import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
+import feign.optionals.OptionalDecoder;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.cloud.openfeign.support.HttpMessageConverterCustomizer;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringEncoder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -34,6 +67,7 @@ import static com.chtrembl.petstoreapp.config.Constants.X_AUTH_TYPE;
 import static com.chtrembl.petstoreapp.config.Constants.X_CORRELATION_ID;
 import static com.chtrembl.petstoreapp.config.Constants.X_HTTP_SESSION_ID;
 import static com.chtrembl.petstoreapp.config.Constants.X_PARENT_SPAN_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_DEADLINE;
 import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_ID;
 import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_METHOD;
 import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_TIMESTAMP;
@@ -57,6 +91,9 @@ public class FeignConfig {
     private final WebRequest webRequest;
     private final User sessionUser;
 
+    @Value("${petstore.feign.log-requests:false}")
+    private boolean logOutgoingRequests;
+
     @Bean
     public RequestInterceptor requestInterceptor() {
         return new EnhancedRequestInterceptor();
@@ -67,6 +104,59 @@ public class FeignConfig {
         return new PetstoreErrorDecoder();
     }
 
+    /**
+     * Spring's default decoder chain, with catalog responses streamed into their indexes instead.
+     */
+    @Bean
+    public Decoder feignDecoder(ObjectMapper objectMapper,
+                                ObjectFactory<HttpMessageConverters> messageConverters,
+                                ObjectProvider<HttpMessageConverterCustomizer> customizers) {
+        return new CatalogStreamingDecoder(objectMapper,
+                new OptionalDecoder(new ResponseEntityDecoder(new SpringDecoder(messageConverters, customizers))));
+    }
+
+    /**
+     * Spring's default encoder, with order bodies written by the shared order writer instead.
+     */
+    @Bean
+    public Encoder feignEncoder(ObjectWriter orderWriter, ObjectFactory<HttpMessageConverters> messageConverters) {
+        return new OrderEncoder(orderWriter, new SpringEncoder(messageConverters));
+    }
+
+    @Bean
+    public Capability deadlineCapability(MeterRegistry meterRegistry) {
+        return new DeadlineCapability(meterRegistry);
+    }
+
+    @Bean
+    public Capability singleFlightCapability(MeterRegistry meterRegistry) {
+        return new SingleFlightCapability(meterRegistry);
+    }
+
+    @Bean
+    public Capability hedgingCapability(FeignHedgeProperties feignHedgeProperties,
+                                        ThreadPoolTaskExecutor petStoreHedgeExecutor,
+                                        MeterRegistry meterRegistry) {
+        return new HedgingCapability(feignHedgeProperties, petStoreHedgeExecutor, meterRegistry);
+    }
+
+    @Bean
+    public Capability adaptiveLimitCapability(FeignLimitProperties feignLimitProperties, MeterRegistry meterRegistry) {
+        return new AdaptiveLimitCapability(feignLimitProperties, meterRegistry);
+    }
+
+    @Bean
+    public Capability isolationCapability(CircuitBreakerRegistry circuitBreakerRegistry,
+                                          BulkheadRegistry bulkheadRegistry,
+                                          MeterRegistry meterRegistry) {
+        return new IsolationCapability(circuitBreakerRegistry, bulkheadRegistry, meterRegistry);
+    }
+
+    @Bean
+    public Capability latencyCapability(MeterRegistry meterRegistry) {
+        return new LatencyCapability(meterRegistry);
+    }
+
     @Bean
     public feign.Request.Options feignOptions() {
         return new feign.Request.Options(
@@ -105,8 +195,12 @@ public class FeignConfig {
                         extractResponseBody(response),
                         response.headers()
                 );
-                case 429 -> new feign.FeignException.TooManyRequests(
+                // Throttling and temporary unavailability are worth retrying once the server allows it
+                case 429 -> new feign.RetryableException(
+                        response.status(),
                         "Rate limit exceeded for " + methodKey,
+                        response.request().httpMethod(),
+                        extractRetryAfter(response),
                         response.request(),
                         extractResponseBody(response),
                         response.headers()
@@ -117,8 +211,11 @@ public class FeignConfig {
                         extractResponseBody(response),
                         response.headers()
                 );
-                case 503 -> new feign.FeignException.ServiceUnavailable(
+                case 503 -> new feign.RetryableException(
+                        response.status(),
                         "Service unavailable for " + methodKey,
+                        response.request().httpMethod(),
+                        extractRetryAfter(response),
                         response.request(),
                         extractResponseBody(response),
                         response.headers()
@@ -143,6 +240,27 @@ public class FeignConfig {
             return new byte[0];
         }
 
+        /**
+         * Parses Retry-After (delay in seconds or an HTTP date) into epoch millis, or null if absent or malformed.
+         */
+        private Long extractRetryAfter(feign.Response response) {
+            String retryAfter = extractHeaderValue(response, HttpHeaders.RETRY_AFTER);
+            if ("unknown".equals(retryAfter)) {
+                return null;
+            }
+            try {
+                return System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+            } catch (NumberFormatException e) {
+                try {
+                    return ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME)
+                            .toInstant().toEpochMilli();
+                } catch (DateTimeParseException dateException) {
+                    log.debug("Ignoring malformed Retry-After header: {}", retryAfter);
+                    return null;
+                }
+            }
+        }
+
         private String extractHeaderValue(feign.Response response, String headerName) {
             try {
                 return response.headers().getOrDefault(headerName, java.util.Collections.emptyList())
@@ -155,69 +273,86 @@ public class FeignConfig {
         }
     }
 
+    /**
+     * Adds the petstore context headers to every outgoing call. Headers that never change are
+     * resolved once into an immutable template; per-request values are read in a single pass.
+     */
     private class EnhancedRequestInterceptor implements RequestInterceptor {
 
+        private final Map<String, List<String>> staticHeaders = Map.of(
+                HttpHeaders.CONTENT_TYPE, List.of(MediaType.APPLICATION_JSON_VALUE),
+                HttpHeaders.ACCEPT, List.of(MediaType.APPLICATION_JSON_VALUE),
+                CACHE_CONTROL, List.of("no-cache"),
+                X_SOURCE_SERVICE, List.of("petstoreapp"),
+                X_SOURCE_VERSION, List.of(resolveAppVersion()));
+
         @Override
         public void apply(RequestTemplate template) {
-            webRequest.getHeaders().forEach((key, values) -> {
-                values.forEach(value -> template.header(key, value));
-            });
-
-            template.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
-            template.header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
-            template.header(CACHE_CONTROL, "no-cache");
+            // Background work such as catalog cache refreshes runs without a bound request or session
+            RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
 
-            addSessionHeaders(template);
-            addCorrelationHeaders(template);
-            addUserContextHeaders(template);
-            addServiceHeaders(template);
-
-            template.header(X_REQUEST_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+            if (requestAttributes != null) {
+                webRequest.getHeaders().forEach(template::header);
+            }
+            staticHeaders.forEach(template::header);
 
             String requestId = MDC.get(REQUEST_ID);
             String traceId = MDC.get(TRACE_ID);
             String targetService = template.feignTarget().name();
 
-            log.info("Outgoing Feign request: {} {} [RequestID: {}, TraceID: {}, Target: {}]",
-                    template.method(), template.url(), requestId, traceId, targetService);
-            
-            log.debug("Applied headers to Feign request: {} {}",
-                    template.method(), template.url());
-            log.debug("All headers: {}", template.headers());
+            if (requestAttributes != null) {
+                addSessionHeaders(template, requestAttributes);
+            }
+            addCorrelationHeaders(template, requestId, traceId);
+            if (requestAttributes != null) {
+                addUserContextHeaders(template);
+            }
+            addServiceHeaders(template, targetService);
+
+            template.header(X_REQUEST_TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+
+            OptionalLong deadline = RequestDeadline.current();
+            if (deadline.isPresent()) {
+                template.header(X_REQUEST_DEADLINE, String.valueOf(deadline.getAsLong()));
+            }
+
+            if (logOutgoingRequests) {
+                log.info("Outgoing Feign request: {} {} [RequestID: {}, TraceID: {}, Target: {}]",
+                        template.method(), template.url(), requestId, traceId, targetService);
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Applied headers to Feign request: {} {}", template.method(), template.url());
+                log.debug("All headers: {}", template.headers());
+            }
         }
 
-        private void addSessionHeaders(RequestTemplate template) {
-            if (sessionUser != null && StringUtils.hasText(sessionUser.getSessionId())) {
-                template.header(X_SESSION_ID, sessionUser.getSessionId());
-                template.header(X_SESSION_ID_LOWERCASE, sessionUser.getSessionId());
-                log.debug("Added session ID header: {}", sessionUser.getSessionId());
+        private void addSessionHeaders(RequestTemplate template, RequestAttributes requestAttributes) {
+            String sessionId = sessionUser != null ? sessionUser.getSessionId() : null;
+            if (StringUtils.hasText(sessionId)) {
+                template.header(X_SESSION_ID, sessionId);
+                template.header(X_SESSION_ID_LOWERCASE, sessionId);
             }
 
-            try {
-                ServletRequestAttributes attributes =
-                        (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
-                String sessionId = attributes.getRequest().getSession().getId();
-                if (StringUtils.hasText(sessionId)) {
-                    template.header(X_HTTP_SESSION_ID, sessionId);
+            if (requestAttributes instanceof ServletRequestAttributes servletAttributes) {
+                try {
+                    String httpSessionId = servletAttributes.getRequest().getSession().getId();
+                    if (StringUtils.hasText(httpSessionId)) {
+                        template.header(X_HTTP_SESSION_ID, httpSessionId);
+                    }
+                } catch (IllegalStateException e) {
+                    log.debug("Could not extract HTTP session ID: {}", e.getMessage());
                 }
-            } catch (Exception e) {
-                log.debug("Could not extract HTTP session ID: {}", e.getMessage());
             }
         }
 
-        private void addCorrelationHeaders(RequestTemplate template) {
-            String requestId = MDC.get(REQUEST_ID);
-            if (StringUtils.hasText(requestId)) {
-                template.header(X_REQUEST_ID, requestId);
-                template.header(X_CORRELATION_ID, requestId);
-            } else {
-                String newRequestId = UUID.randomUUID().toString().substring(0, 8);
-                template.header(X_REQUEST_ID, newRequestId);
-                template.header(X_CORRELATION_ID, newRequestId);
-                log.debug("Generated new request ID: {}", newRequestId);
+        private void addCorrelationHeaders(RequestTemplate template, String requestId, String traceId) {
+            if (!StringUtils.hasText(requestId)) {
+                requestId = UUID.randomUUID().toString().substring(0, 8);
+                log.debug("Generated new request ID: {}", requestId);
             }
+            template.header(X_REQUEST_ID, requestId);
+            template.header(X_CORRELATION_ID, requestId);
 
-            String traceId = MDC.get(TRACE_ID);
             if (StringUtils.hasText(traceId)) {
                 template.header(X_TRACE_ID, traceId);
             }
@@ -229,36 +364,42 @@ public class FeignConfig {
         }
 
         private void addUserContextHeaders(RequestTemplate template) {
-            if (sessionUser != null) {
-                if (StringUtils.hasText(sessionUser.getName())) {
-                    template.header(X_USER_NAME, sessionUser.getName());
-                }
+            if (sessionUser == null) {
+                return;
+            }
 
-                if (StringUtils.hasText(sessionUser.getEmail())) {
-                    template.header(X_USER_EMAIL, sessionUser.getEmail());
-                }
+            String name = sessionUser.getName();
+            if (StringUtils.hasText(name)) {
+                template.header(X_USER_NAME, name);
+            }
 
-                String authType = MDC.get(AUTH_TYPE);
-                if (StringUtils.hasText(authType)) {
-                    template.header(X_AUTH_TYPE, authType);
-                }
+            String email = sessionUser.getEmail();
+            if (StringUtils.hasText(email)) {
+                template.header(X_USER_EMAIL, email);
+            }
 
-                String isAuthenticated = MDC.get(IS_AUTHENTICATED);
-                if (StringUtils.hasText(isAuthenticated)) {
-                    template.header(X_AUTHENTICATED, isAuthenticated);
-                }
+            String authType = MDC.get(AUTH_TYPE);
+            if (StringUtils.hasText(authType)) {
+                template.header(X_AUTH_TYPE, authType);
             }
-        }
 
-        private void addServiceHeaders(RequestTemplate template) {
-            template.header(X_SOURCE_SERVICE, "petstoreapp");
-            template.header(X_SOURCE_VERSION, getAppVersion());
+            String isAuthenticated = MDC.get(IS_AUTHENTICATED);
+            if (StringUtils.hasText(isAuthenticated)) {
+                template.header(X_AUTHENTICATED, isAuthenticated);
+            }
+        }
 
-            String targetService = template.feignTarget().name();
+        private void addServiceHeaders(RequestTemplate template, String targetService) {
             template.header(X_TARGET_SERVICE, targetService);
 
-            template.header(X_REQUEST_URI, MDC.get(REQUEST_URI));
-            template.header(X_REQUEST_METHOD, MDC.get(REQUEST_METHOD));
+            String requestUri = MDC.get(REQUEST_URI);
+            if (requestUri != null) {
+                template.header(X_REQUEST_URI, requestUri);
+            }
+            String requestMethod = MDC.get(REQUEST_METHOD);
+            if (requestMethod != null) {
+                template.header(X_REQUEST_METHOD, requestMethod);
+            }
 
             String containerHost = MDC.get(CONTAINER_HOST);
             if (StringUtils.hasText(containerHost)) {
@@ -266,7 +407,7 @@ public class FeignConfig {
             }
         }
 
-        private String getAppVersion() {
+        private String resolveAppVersion() {
             String version = System.getProperty("app.version");
             if (StringUtils.hasText(version)) {
                 return version;
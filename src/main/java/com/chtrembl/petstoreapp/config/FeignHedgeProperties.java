@@ -0,0 +1,102 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Request hedging settings for {@code @Hedged} Feign methods, per downstream target.
+ * Targets are keyed by Feign client name; a target's own entry overrides the defaults field
+ * by field, and a target without an entry uses the defaults.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.feign.hedge")
+@Getter
+@Setter
+public class FeignHedgeProperties {
+
+    private Hedge defaults = Hedge.builtIn();
+
+    private Map<String, Hedge> clients = new HashMap<>();
+
+    public Hedge forClient(String clientName) {
+        Hedge hedge = clients.get(clientName);
+        return hedge != null ? hedge.over(defaults) : defaults;
+    }
+
+    /**
+     * Hedge settings; in a target's entry, a setting left unset is taken from the defaults.
+     */
+    @Getter
+    @Setter
+    public static class Hedge {
+
+        /**
+         * Whether {@code @Hedged} methods of the target are hedged at all. Defaults to true.
+         */
+        private Boolean enabled;
+
+        /**
+         * Latency percentile of recent calls after which the hedge request is sent. Defaults to 0.95.
+         */
+        private Double percentile;
+
+        /**
+         * The hedge is never sent sooner than this, however fast the target usually is. Defaults to 20.
+         */
+        private Long minDelayMs;
+
+        /**
+         * Number of recent call latencies the percentile is taken over. Defaults to 200.
+         */
+        private Integer window;
+
+        /**
+         * Calls to observe before hedging starts. Defaults to 20.
+         */
+        private Integer minSamples;
+
+        /**
+         * Most hedge requests as a share of calls (0.1 = at most one hedge per ten calls over time).
+         * Defaults to 0.1.
+         */
+        private Double budgetRatio;
+
+        /**
+         * Hedges that may be saved up during quiet periods and spent in a burst. Defaults to 10.
+         */
+        private Integer budgetBurst;
+
+        static Hedge builtIn() {
+            Hedge hedge = new Hedge();
+            hedge.enabled = true;
+            hedge.percentile = 0.95;
+            hedge.minDelayMs = 20L;
+            hedge.window = 200;
+            hedge.minSamples = 20;
+            hedge.budgetRatio = 0.1;
+            hedge.budgetBurst = 10;
+            return hedge;
+        }
+
+        /**
+         * Returns these settings with each one left unset taken from the given defaults.
+         */
+        Hedge over(Hedge defaults) {
+            Hedge merged = new Hedge();
+            merged.enabled = Objects.requireNonNullElse(enabled, defaults.enabled);
+            merged.percentile = Objects.requireNonNullElse(percentile, defaults.percentile);
+            merged.minDelayMs = Objects.requireNonNullElse(minDelayMs, defaults.minDelayMs);
+            merged.window = Objects.requireNonNullElse(window, defaults.window);
+            merged.minSamples = Objects.requireNonNullElse(minSamples, defaults.minSamples);
+            merged.budgetRatio = Objects.requireNonNullElse(budgetRatio, defaults.budgetRatio);
+            merged.budgetBurst = Objects.requireNonNullElse(budgetBurst, defaults.budgetBurst);
+            return merged;
+        }
+    }
+}
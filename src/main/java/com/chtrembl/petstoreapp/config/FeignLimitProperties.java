@@ -0,0 +1,109 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Adaptive concurrency limit settings for the Feign clients, per downstream target.
+ * Targets are keyed by Feign client name; a target's own entry overrides the defaults field
+ * by field, and a target without an entry uses the defaults.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.feign.limit")
+@Getter
+@Setter
+public class FeignLimitProperties {
+
+    private Limit defaults = Limit.builtIn();
+
+    private Map<String, Limit> clients = new HashMap<>();
+
+    public Limit forClient(String clientName) {
+        Limit limit = clients.get(clientName);
+        return limit != null ? limit.over(defaults) : defaults;
+    }
+
+    /**
+     * Limit settings; in a target's entry, a setting left unset is taken from the defaults.
+     */
+    @Getter
+    @Setter
+    public static class Limit {
+
+        /**
+         * Whether calls to the target are limited at all. Defaults to true.
+         */
+        private Boolean enabled;
+
+        /**
+         * In-flight limit the target starts with before any RTT has been measured. Defaults to 10.
+         */
+        private Integer initialLimit;
+
+        /**
+         * The limit never drops below this, so a slow target still gets some traffic. Defaults to 2.
+         */
+        private Integer minLimit;
+
+        /**
+         * The limit never grows beyond this; keep it at or below the target's pool size. Defaults to 20.
+         */
+        private Integer maxLimit;
+
+        /**
+         * How far the current RTT may exceed the long-term RTT before the limit shrinks. Defaults to 1.5.
+         */
+        private Double rttTolerance;
+
+        /**
+         * Weight of each new limit estimate against the previous limit (0..1). Defaults to 0.2.
+         */
+        private Double smoothing;
+
+        /**
+         * Number of samples the long-term RTT average spans. Defaults to 600.
+         */
+        private Integer longWindow;
+
+        /**
+         * Factor applied to the limit when a call times out or the target answers with an overload error.
+         * Defaults to 0.9.
+         */
+        private Double backoffRatio;
+
+        static Limit builtIn() {
+            Limit limit = new Limit();
+            limit.enabled = true;
+            limit.initialLimit = 10;
+            limit.minLimit = 2;
+            limit.maxLimit = 20;
+            limit.rttTolerance = 1.5;
+            limit.smoothing = 0.2;
+            limit.longWindow = 600;
+            limit.backoffRatio = 0.9;
+            return limit;
+        }
+
+        /**
+         * Returns these settings with each one left unset taken from the given defaults.
+         */
+        Limit over(Limit defaults) {
+            Limit merged = new Limit();
+            merged.enabled = Objects.requireNonNullElse(enabled, defaults.enabled);
+            merged.initialLimit = Objects.requireNonNullElse(initialLimit, defaults.initialLimit);
+            merged.minLimit = Objects.requireNonNullElse(minLimit, defaults.minLimit);
+            merged.maxLimit = Objects.requireNonNullElse(maxLimit, defaults.maxLimit);
+            merged.rttTolerance = Objects.requireNonNullElse(rttTolerance, defaults.rttTolerance);
+            merged.smoothing = Objects.requireNonNullElse(smoothing, defaults.smoothing);
+            merged.longWindow = Objects.requireNonNullElse(longWindow, defaults.longWindow);
+            merged.backoffRatio = Objects.requireNonNullElse(backoffRatio, defaults.backoffRatio);
+            return merged;
+        }
+    }
+}
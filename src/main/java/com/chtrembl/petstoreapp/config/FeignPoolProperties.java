@@ -0,0 +1,97 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Connection pool settings for the Feign transport, per downstream target.
+ * Targets are keyed by Feign client name (pet-service, product-service, order-service);
+ * a target's own entry overrides the defaults field by field, and a target without an
+ * entry uses the defaults.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.feign.pool")
+@Getter
+@Setter
+public class FeignPoolProperties {
+
+    private Pool defaults = Pool.builtIn();
+
+    private Map<String, Pool> clients = new HashMap<>();
+
+    public Pool forClient(String clientName) {
+        Pool pool = clients.get(clientName);
+        return pool != null ? pool.over(defaults) : defaults;
+    }
+
+    /**
+     * Pool settings; in a target's entry, a setting left unset is taken from the defaults.
+     */
+    @Getter
+    @Setter
+    public static class Pool {
+
+        /**
+         * Connections kept open to the target; each target talks to a single route. Defaults to 20.
+         */
+        private Integer maxConnectionsPerRoute;
+
+        /**
+         * Upper bound for all connections of the target's pool. Defaults to 20.
+         */
+        private Integer maxConnectionsTotal;
+
+        /**
+         * Most time a caller waits to lease a pooled connection before failing. Defaults to 1000.
+         */
+        private Long leaseTimeoutMs;
+
+        /**
+         * Keep-alive applied when the server does not advertise one, and the cap when it does. Defaults to 30.
+         */
+        private Long keepAliveSeconds;
+
+        /**
+         * Pooled connections idle for longer than this are closed in the background. Defaults to 60.
+         */
+        private Long idleEvictSeconds;
+
+        /**
+         * Use the JDK HTTP/2 client (multiplexed, no pool of its own) instead of the pooled HTTP/1.1 client.
+         * Defaults to false.
+         */
+        private Boolean http2;
+
+        static Pool builtIn() {
+            Pool pool = new Pool();
+            pool.maxConnectionsPerRoute = 20;
+            pool.maxConnectionsTotal = 20;
+            pool.leaseTimeoutMs = 1000L;
+            pool.keepAliveSeconds = 30L;
+            pool.idleEvictSeconds = 60L;
+            pool.http2 = false;
+            return pool;
+        }
+
+        /**
+         * Returns these settings with each one left unset taken from the given defaults.
+         */
+        Pool over(Pool defaults) {
+            Pool merged = new Pool();
+            merged.maxConnectionsPerRoute =
+                    Objects.requireNonNullElse(maxConnectionsPerRoute, defaults.maxConnectionsPerRoute);
+            merged.maxConnectionsTotal = Objects.requireNonNullElse(maxConnectionsTotal, defaults.maxConnectionsTotal);
+            merged.leaseTimeoutMs = Objects.requireNonNullElse(leaseTimeoutMs, defaults.leaseTimeoutMs);
+            merged.keepAliveSeconds = Objects.requireNonNullElse(keepAliveSeconds, defaults.keepAliveSeconds);
+            merged.idleEvictSeconds = Objects.requireNonNullElse(idleEvictSeconds, defaults.idleEvictSeconds);
+            merged.http2 = Objects.requireNonNullElse(http2, defaults.http2);
+            return merged;
+        }
+    }
+}
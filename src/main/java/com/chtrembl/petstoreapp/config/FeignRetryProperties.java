@@ -0,0 +1,46 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Retry settings for idempotent Feign calls, shared by all downstream targets.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.feign.retry")
+@Getter
+@Setter
+public class FeignRetryProperties {
+
+    /**
+     * Attempts per call including the first; 1 disables retries.
+     */
+    private int maxAttempts = 3;
+
+    /**
+     * Upper bound of the jittered delay before the first retry; doubles for each further retry.
+     */
+    private long initialBackoffMs = 50;
+
+    /**
+     * Upper bound of the jittered delay before any retry.
+     */
+    private long maxBackoffMs = 1000;
+
+    /**
+     * Longest Retry-After the app is willing to wait for; longer ones fail the call instead.
+     */
+    private long maxRetryAfterMs = 2000;
+
+    /**
+     * Most retries as a share of all Feign calls (0.1 = at most one retry per ten calls over time).
+     */
+    private double budgetRatio = 0.1;
+
+    /**
+     * Retries that may be saved up during quiet periods and spent in a burst.
+     */
+    private int budgetBurst = 10;
+}
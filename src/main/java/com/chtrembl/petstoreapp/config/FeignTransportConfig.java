@@ -0,0 +1,36 @@
+package com.chtrembl.petstoreapp.config;
+
+import com.chtrembl.petstoreapp.config.feign.BudgetedRetryer;
+import com.chtrembl.petstoreapp.config.feign.OrderEncoder;
+import com.chtrembl.petstoreapp.config.feign.PooledTargetClient;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import feign.Client;
+import feign.Retryer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Transport and retry policy shared by all Feign clients. Kept out of {@link FeignConfig}, which
+ * every client also loads into its own context, so there is a single transport owning the
+ * per-target pools and a single retryer owning the global retry budget. The order writer is
+ * shared with the WebClient path.
+ */
+@Configuration
+public class FeignTransportConfig {
+
+    @Bean
+    public Client feignClient(FeignPoolProperties feignPoolProperties, MeterRegistry meterRegistry) {
+        return new PooledTargetClient(feignPoolProperties, meterRegistry);
+    }
+
+    @Bean
+    public Retryer feignRetryer(FeignRetryProperties feignRetryProperties, MeterRegistry meterRegistry) {
+        return new BudgetedRetryer(feignRetryProperties, meterRegistry);
+    }
+
+    @Bean
+    public ObjectWriter orderWriter() {
+        return OrderEncoder.createOrderWriter();
+    }
+}
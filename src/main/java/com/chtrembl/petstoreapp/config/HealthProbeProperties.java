@@ -0,0 +1,57 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the background probes behind the downstream service health indicators.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.health")
+@Getter
+@Setter
+public class HealthProbeProperties {
+
+    /**
+     * Delay between the end of one probe round and the start of the next.
+     */
+    private long refreshIntervalMs = 15000;
+
+    /**
+     * Time a single probe may take before its service is reported DOWN.
+     */
+    private long timeoutMs = 5000;
+
+    /**
+     * Probes that may be in flight at once.
+     */
+    private int parallelism = 3;
+
+    /**
+     * Age after which a snapshot is reported UNKNOWN rather than trusted (e.g. the prober stalled).
+     */
+    private long maxSnapshotAgeMs = 60000;
+
+    /**
+     * Lifetime of a health event stream connection; browsers reconnect on their own afterwards.
+     */
+    private long streamTimeoutMs = 1800000;
+
+    /**
+     * Interval of the keep-alive comments that also detect stream subscribers that went away.
+     */
+    private long streamHeartbeatMs = 30000;
+
+    /**
+     * Time one write to a health event stream may take before the page is considered gone
+     * and its stream is closed.
+     */
+    private long streamSendTimeoutMs = 10000;
+
+    /**
+     * Most open health event streams; further subscribers are turned away.
+     */
+    private int streamMaxSubscribers = 5000;
+}
@@ -2,11 +2,12 @@ package com.chtrembl.petstoreapp.config;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
-import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
 
 import java.util.UUID;
 
@@ -34,6 +35,7 @@ import static com.chtrembl.petstoreapp.config.Constants.X_CORRELATION_ID;
 import static com.chtrembl.petstoreapp.config.Constants.X_FORWARDED_FOR;
 import static com.chtrembl.petstoreapp.config.Constants.X_PARENT_SPAN_ID;
 import static com.chtrembl.petstoreapp.config.Constants.X_REAL_IP;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_DEADLINE;
 import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_DURATION;
 import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_ID;
 import static com.chtrembl.petstoreapp.config.Constants.X_RESPONSE_REQUEST_ID;
@@ -43,8 +45,11 @@ import static com.chtrembl.petstoreapp.config.Constants.X_SPAN_ID;
 import static com.chtrembl.petstoreapp.config.Constants.X_TRACE_ID;
 
 @Component
+@RequiredArgsConstructor
 @Slf4j
-public class MDCInterceptor implements HandlerInterceptor {
+public class MDCInterceptor implements AsyncHandlerInterceptor {
+
+    private final DeadlineProperties deadlineProperties;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
@@ -64,7 +69,9 @@ public class MDCInterceptor implements HandlerInterceptor {
         addSessionInfo(request);
         addClientInfo(request);
 
-        request.setAttribute("startTime", System.currentTimeMillis());
+        long startTime = System.currentTimeMillis();
+        request.setAttribute("startTime", startTime);
+        setDeadline(request, startTime);
 
         log.debug("Starting request processing [RequestID: {}, URI: {}, Method: {}]",
                 requestId, request.getRequestURI(), request.getMethod());
@@ -103,6 +110,36 @@ public class MDCInterceptor implements HandlerInterceptor {
         }
     }
 
+    /**
+     * The handler went async (e.g. a Server-Sent Events stream): afterCompletion only runs on the
+     * later async dispatch, so release this thread's MDC now rather than leaving it to the next request.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        MDC.clear();
+    }
+
+    /**
+     * Gives the request its route's time budget, or less if the caller sent an earlier deadline.
+     */
+    private void setDeadline(HttpServletRequest request, long startTime) {
+        if (!deadlineProperties.isEnabled()) {
+            return;
+        }
+
+        long deadline = startTime + deadlineProperties.budgetFor(request.getRequestURI());
+        String incomingDeadline = request.getHeader(X_REQUEST_DEADLINE);
+        if (StringUtils.hasText(incomingDeadline)) {
+            try {
+                deadline = Math.min(deadline, Long.parseLong(incomingDeadline.trim()));
+            } catch (NumberFormatException e) {
+                log.debug("Ignoring malformed incoming deadline: {}", incomingDeadline);
+            }
+        }
+        RequestDeadline.set(request, deadline);
+    }
+
     private String extractOrGenerateRequestId(HttpServletRequest request) {
         String requestId = request.getHeader(X_REQUEST_ID);
         if (StringUtils.hasText(requestId)) {
@@ -0,0 +1,42 @@
+package com.chtrembl.petstoreapp.config;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+
+/**
+ * Carries the caller's request attributes and MDC onto worker threads, so session- and
+ * request-scoped beans (and the Feign request interceptor) behave as on the request thread.
+ */
+public class RequestContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+
+        return () -> {
+            RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            try {
+                RequestContextHolder.setRequestAttributes(requestAttributes);
+                if (mdcContext != null) {
+                    MDC.setContextMap(mdcContext);
+                } else {
+                    MDC.clear();
+                }
+                runnable.run();
+            } finally {
+                RequestContextHolder.setRequestAttributes(previousAttributes);
+                if (previousMdc != null) {
+                    MDC.setContextMap(previousMdc);
+                } else {
+                    MDC.clear();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,44 @@
+package com.chtrembl.petstoreapp.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.OptionalLong;
+
+/**
+ * Deadline of the current page request, kept as a request attribute so it travels with the
+ * request context onto fan-out and hedge threads. Downstream calls only get the time left.
+ */
+public final class RequestDeadline {
+
+    private static final String ATTRIBUTE = RequestDeadline.class.getName();
+
+    private RequestDeadline() {
+        throw new UnsupportedOperationException("Utility class, do not instantiate");
+    }
+
+    public static void set(HttpServletRequest request, long deadlineEpochMs) {
+        request.setAttribute(ATTRIBUTE, deadlineEpochMs);
+    }
+
+    /**
+     * The current request's deadline in epoch millis, if a request is bound and has one.
+     */
+    public static OptionalLong current() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return OptionalLong.empty();
+        }
+        Object deadline = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        return deadline instanceof Long epochMs ? OptionalLong.of(epochMs) : OptionalLong.empty();
+    }
+
+    /**
+     * Milliseconds left until the current request's deadline, or {@link Long#MAX_VALUE} without one.
+     */
+    public static long remainingMs() {
+        OptionalLong deadline = current();
+        return deadline.isPresent() ? deadline.getAsLong() - System.currentTimeMillis() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,57 @@
+package com.chtrembl.petstoreapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the buffer between request threads and the Application Insights client.
+ */
+@Component
+@ConfigurationProperties(prefix = "petstore.telemetry")
+@Getter
+@Setter
+public class TelemetryProperties {
+
+    /**
+     * Telemetry items the buffer holds before overflowing; rounded up to a power of two.
+     */
+    private int bufferCapacity = 8192;
+
+    /**
+     * Most items handed to Application Insights per dispatcher pass before checking for shutdown.
+     */
+    private int batchSize = 256;
+
+    /**
+     * Delay between dispatcher passes over the buffer.
+     */
+    private long flushIntervalMs = 200;
+
+    /**
+     * Interval over which metric samples are combined; one summary per metric name is sent each interval.
+     */
+    private long metricIntervalMs = 60000;
+
+    /**
+     * Most distinct metrics (name and properties) aggregated at once; samples of further metrics are dropped.
+     */
+    private int maxMetricNames = 1000;
+
+    /**
+     * What to give up when the buffer is full.
+     */
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+    public enum OverflowPolicy {
+        /**
+         * Discard the item being tracked.
+         */
+        DROP_NEWEST,
+        /**
+         * Discard the oldest buffered item to make room for the new one.
+         */
+        DROP_OLDEST
+    }
+}
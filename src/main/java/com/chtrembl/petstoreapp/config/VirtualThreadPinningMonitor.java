@@ -0,0 +1,85 @@
+package com.chtrembl.petstoreapp.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Counts virtual threads that stayed pinned to their carrier thread, while running on
+ * virtual threads ({@code spring.threads.virtual.enabled}). Listens to the JFR
+ * {@code jdk.VirtualThreadPinned} event in-process, so every pin longer than the threshold
+ * is counted in {@code petstore.virtualthreads.pinned} and logged with the frame that caused it.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadPinningMonitor implements DisposableBean {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.chtrembl.";
+
+    private final Counter pinnedCounter;
+    private final long thresholdMs;
+    private RecordingStream recording;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${petstore.virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+        this.pinnedCounter = Counter.builder("petstore.virtualthreads.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier thread")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            this.recording = new RecordingStream();
+            this.recording.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(this.thresholdMs)).withStackTrace();
+            this.recording.onEvent(PINNED_EVENT, this::onPinned);
+            this.recording.startAsync();
+            log.info("Watching for pinned virtual threads [Threshold: {}ms]", this.thresholdMs);
+        } catch (RuntimeException e) {
+            log.warn("Unable to watch for pinned virtual threads: {}", e.getMessage());
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        this.pinnedCounter.increment();
+        log.warn("Virtual thread pinned for {}ms at {}", event.getDuration().toMillis(), pinningFrame(event));
+    }
+
+    /**
+     * The innermost application frame of the pinned stack, or the innermost frame if none is ours.
+     */
+    private static String pinningFrame(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame frame = stackTrace.getFrames().stream()
+                .filter(f -> f.isJavaFrame() && f.getMethod().getType().getName().startsWith(APP_PACKAGE))
+                .findFirst()
+                .orElse(stackTrace.getFrames().get(0));
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+
+    @Override
+    public void destroy() {
+        if (this.recording != null) {
+            this.recording.close();
+        }
+    }
+}
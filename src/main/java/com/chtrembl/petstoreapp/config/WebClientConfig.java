@@ -0,0 +1,54 @@
+package com.chtrembl.petstoreapp.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Shared, pooled {@link WebClient} for the non-blocking path to the downstream services.
+ * One connection pool serves all targets (Reactor Netty keeps a sub-pool per host), and
+ * in-flight I/O does not hold a thread.
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider petStoreConnectionProvider(
+            @Value("${petstore.webclient.max-connections:100}") int maxConnections,
+            @Value("${petstore.webclient.pending-acquire-timeout-ms:1000}") long pendingAcquireTimeoutMs,
+            @Value("${petstore.webclient.max-idle-seconds:30}") long maxIdleSeconds) {
+        return ConnectionProvider.builder("petstore")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleSeconds))
+                .evictInBackground(Duration.ofSeconds(maxIdleSeconds))
+                .metrics(true)
+                .build();
+    }
+
+    @Bean
+    public WebClient petStoreWebClient(WebClient.Builder webClientBuilder,
+                                       ConnectionProvider petStoreConnectionProvider,
+                                       @Value("${petstore.webclient.connect-timeout-ms:5000}") int connectTimeoutMs,
+                                       @Value("${petstore.webclient.response-timeout-ms:5000}") long responseTimeoutMs) {
+        HttpClient httpClient = HttpClient.create(petStoreConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+
+        return webClientBuilder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .defaultHeader(Constants.CACHE_CONTROL, "no-cache")
+                .defaultHeader(Constants.X_SOURCE_SERVICE, "petstoreapp")
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.FeignLimitProperties;
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.ConcurrencyLimitExceededException;
+import feign.Capability;
+import feign.Client;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caps the calls in flight to each Feign target with a {@link GradientConcurrencyLimit} that
+ * follows the target's measured RTT. Calls beyond the current limit fail immediately with
+ * {@link ConcurrencyLimitExceededException} instead of queueing for a connection.
+ * <p>
+ * A call holds its slot across all of its retries, but the limit learns from each HTTP attempt
+ * on its own: the RTT is measured around the transport, so retry backoff is not counted as
+ * latency, and only I/O errors, 5xx and 429 responses count as drops.
+ * <p>
+ * Ordered after {@link SingleFlightCapability} and {@link HedgingCapability} and before
+ * {@link IsolationCapability}, so coalesced callers take no slot, each hedge attempt takes
+ * its own, and only calls that reach the target are sampled.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class AdaptiveLimitCapability implements Capability, Ordered {
+
+    private final FeignLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, GradientConcurrencyLimit> limits = new ConcurrentHashMap<>();
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
+        return (target, dispatch) -> {
+            FeignLimitProperties.Limit settings = properties.forClient(target.name());
+            if (!settings.getEnabled()) {
+                return invocationHandlerFactory.create(target, dispatch);
+            }
+
+            GradientConcurrencyLimit limit = limits.computeIfAbsent(target.name(), this::createLimit);
+            Map<Method, MethodHandler> limited = new LinkedHashMap<>(dispatch);
+            limited.replaceAll((method, handler) -> new LimitedMethodHandler(
+                    target.name(), Feign.configKey(target.type(), method), limit, handler));
+            return invocationHandlerFactory.create(target, limited);
+        };
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            GradientConcurrencyLimit limit = limits.get(LatencyCapability.targetName(request));
+            if (limit == null) {
+                return client.execute(request, options);
+            }
+
+            int inFlightAtStart = limit.getInFlight();
+            long start = System.nanoTime();
+            Response response;
+            try {
+                response = client.execute(request, options);
+            } catch (IOException e) {
+                // An aborted hedge loser or a timeout cut short by the deadline says nothing about the target
+                if (!HedgeAttempt.isCurrentCancelled() && RequestDeadline.remainingMs() > 0) {
+                    limit.sample(System.nanoTime() - start, inFlightAtStart, true);
+                }
+                throw e;
+            }
+            limit.sample(System.nanoTime() - start, inFlightAtStart,
+                    response.status() >= 500 || response.status() == 429);
+            return response;
+        };
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 4;
+    }
+
+    private GradientConcurrencyLimit createLimit(String targetName) {
+        FeignLimitProperties.Limit settings = properties.forClient(targetName);
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(settings);
+
+        Gauge.builder("petstore.feign.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit of the Feign target")
+                .tag("client", targetName)
+                .register(meterRegistry);
+        Gauge.builder("petstore.feign.inflight", limit, GradientConcurrencyLimit::getInFlight)
+                .description("Calls currently in flight to the Feign target")
+                .tag("client", targetName)
+                .register(meterRegistry);
+
+        log.info("Feign target {} uses an adaptive concurrency limit (initial {}, min {}, max {})",
+                targetName, settings.getInitialLimit(), settings.getMinLimit(), settings.getMaxLimit());
+        return limit;
+    }
+
+    private class LimitedMethodHandler implements MethodHandler {
+
+        private final String targetName;
+        private final String methodKey;
+        private final GradientConcurrencyLimit limit;
+        private final MethodHandler delegate;
+        private final Counter rejections;
+
+        LimitedMethodHandler(String targetName, String methodKey, GradientConcurrencyLimit limit,
+                             MethodHandler delegate) {
+            this.targetName = targetName;
+            this.methodKey = methodKey;
+            this.limit = limit;
+            this.delegate = delegate;
+            this.rejections = Counter.builder("petstore.feign.rejected")
+                    .description("Downstream calls failed fast without reaching the target")
+                    .tag("client", targetName)
+                    .tag("method", methodKey)
+                    .tag("reason", "limit-exceeded")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Object invoke(Object[] argv) throws Throwable {
+            if (!this.limit.tryAcquire()) {
+                this.rejections.increment();
+                log.warn("Concurrency limit {} of {} reached, rejecting call to {}",
+                        this.limit.getLimit(), this.targetName, this.methodKey);
+                throw new ConcurrencyLimitExceededException(
+                        "Concurrency limit of " + this.targetName + " reached for " + this.methodKey);
+            }
+
+            try {
+                return this.delegate.invoke(argv);
+            } finally {
+                this.limit.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.FeignRetryProperties;
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import feign.Request;
+import feign.RetryableException;
+import feign.Retryer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries idempotent (GET) Feign calls that failed with a {@link RetryableException}, waiting
+ * a full-jitter exponential backoff or the server's Retry-After between attempts. All calls
+ * share one {@link RequestBudget}: every call deposits into it and every retry withdraws,
+ * so retries stay a bounded share of traffic and cannot snowball into a retry storm.
+ * <p>
+ * Feign clones the retryer for each call; clones share the budget and meters.
+ */
+@Slf4j
+public class BudgetedRetryer implements Retryer {
+
+    private final FeignRetryProperties properties;
+    private final RequestBudget budget;
+    private final Counter retries;
+    private final Counter budgetExhausted;
+    private int attempt = 1;
+
+    public BudgetedRetryer(FeignRetryProperties properties, MeterRegistry meterRegistry) {
+        this(properties,
+                new RequestBudget(properties.getBudgetRatio(), properties.getBudgetBurst()),
+                Counter.builder("petstore.feign.retries")
+                        .description("Feign calls retried after a retryable failure")
+                        .register(meterRegistry),
+                Counter.builder("petstore.feign.retries.skipped")
+                        .description("Retries not attempted because the retry budget was spent")
+                        .register(meterRegistry));
+        meterRegistry.gauge("petstore.feign.retry.budget", this.budget, RequestBudget::getTokens);
+    }
+
+    private BudgetedRetryer(FeignRetryProperties properties, RequestBudget budget,
+                            Counter retries, Counter budgetExhausted) {
+        this.properties = properties;
+        this.budget = budget;
+        this.retries = retries;
+        this.budgetExhausted = budgetExhausted;
+    }
+
+    @Override
+    public void continueOrPropagate(RetryableException e) {
+        if (e.method() != Request.HttpMethod.GET || this.attempt >= this.properties.getMaxAttempts()) {
+            throw e;
+        }
+        if (HedgeAttempt.isCurrentCancelled()) {
+            // Lost the hedge race and had its exchange aborted
+            throw e;
+        }
+
+        long delayMs = backoffMs(e);
+        if (delayMs < 0) {
+            log.debug("Not retrying {}: Retry-After exceeds {}ms", e.request().url(), this.properties.getMaxRetryAfterMs());
+            throw e;
+        }
+        if (delayMs >= RequestDeadline.remainingMs()) {
+            log.debug("Not retrying {}: the request deadline would pass first", e.request().url());
+            throw e;
+        }
+        if (!this.budget.tryWithdraw()) {
+            this.budgetExhausted.increment();
+            log.debug("Not retrying {}: retry budget spent", e.request().url());
+            throw e;
+        }
+
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        this.attempt++;
+        this.retries.increment();
+        log.info("Retrying {} (attempt {} of {}) after {}ms: {}",
+                e.request().url(), this.attempt, this.properties.getMaxAttempts(), delayMs, e.getMessage());
+    }
+
+    /**
+     * Delay before the next attempt, or -1 if the server asked us to wait longer than we are willing to.
+     */
+    private long backoffMs(RetryableException e) {
+        Long retryAfter = e.retryAfter();
+        if (retryAfter != null) {
+            long waitMs = Math.max(0, retryAfter - System.currentTimeMillis());
+            return waitMs > this.properties.getMaxRetryAfterMs() ? -1 : waitMs;
+        }
+
+        long ceilingMs = Math.min(this.properties.getMaxBackoffMs(),
+                this.properties.getInitialBackoffMs() << Math.min(this.attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceilingMs + 1);
+    }
+
+    @Override
+    public Retryer clone() {
+        this.budget.onRequest();
+        return new BudgetedRetryer(this.properties, this.budget, this.retries, this.budgetExhausted);
+    }
+}
@@ -0,0 +1,170 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.model.Category;
+import com.chtrembl.petstoreapp.model.Pet;
+import com.chtrembl.petstoreapp.model.PetCatalog;
+import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.ProductIndex;
+import com.chtrembl.petstoreapp.model.Tag;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import feign.FeignException;
+import feign.Response;
+import feign.codec.DecodeException;
+import feign.codec.Decoder;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes catalog responses element by element straight into {@link PetCatalog} and
+ * {@link ProductIndex}, so a catalog load never holds the whole response as a list.
+ * Repeated categories, tags and tag lists are interned, leaving one instance of each
+ * per catalog. Every other return type goes to the delegate decoder.
+ */
+@Slf4j
+public class CatalogStreamingDecoder implements Decoder {
+
+    private final ObjectMapper objectMapper;
+    private final ObjectReader petReader;
+    private final ObjectReader productReader;
+    private final Decoder delegate;
+
+    public CatalogStreamingDecoder(ObjectMapper objectMapper, Decoder delegate) {
+        this.objectMapper = objectMapper;
+        this.petReader = objectMapper.readerFor(Pet.class);
+        this.productReader = objectMapper.readerFor(Product.class);
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object decode(Response response, Type type) throws IOException, FeignException {
+        if (type == PetCatalog.class) {
+            return decodePets(response);
+        }
+        if (type == ProductIndex.class) {
+            return decodeProducts(response);
+        }
+        return delegate.decode(response, type);
+    }
+
+    private PetCatalog decodePets(Response response) throws IOException {
+        if (response.body() == null) {
+            return PetCatalog.empty();
+        }
+
+        Interner interner = new Interner();
+        PetCatalog.Builder builder = new PetCatalog.Builder();
+        try (InputStream in = response.body().asInputStream();
+             JsonParser parser = objectMapper.createParser(in)) {
+            if (!startArray(parser, response)) {
+                return PetCatalog.empty();
+            }
+            while (nextElement(parser, response)) {
+                Pet pet = petReader.readValue(parser);
+                pet.setCategory(interner.category(pet.getCategory()));
+                pet.setTags(interner.tags(pet.getTags()));
+                builder.add(pet);
+            }
+        }
+        PetCatalog catalog = builder.build(0);
+        log.debug("Streamed pet catalog with {} pets, {} distinct categories and {} distinct tags",
+                catalog.size(), interner.categories.size(), interner.tags.size());
+        return catalog;
+    }
+
+    private ProductIndex decodeProducts(Response response) throws IOException {
+        if (response.body() == null) {
+            return ProductIndex.empty();
+        }
+
+        Interner interner = new Interner();
+        ProductIndex.Builder builder = new ProductIndex.Builder();
+        try (InputStream in = response.body().asInputStream();
+             JsonParser parser = objectMapper.createParser(in)) {
+            if (!startArray(parser, response)) {
+                return ProductIndex.empty();
+            }
+            while (nextElement(parser, response)) {
+                Product product = productReader.readValue(parser);
+                // Only products with a category and tags can ever be looked up
+                if (product.getCategory() == null || product.getTags() == null || product.getTags().isEmpty()) {
+                    continue;
+                }
+                product.setCategory(interner.category(product.getCategory()));
+                product.setTags(interner.tags(product.getTags()));
+                builder.add(product);
+            }
+        }
+        ProductIndex index = builder.build();
+        log.debug("Streamed product catalog with {} products, {} distinct categories and {} distinct tags",
+                index.size(), interner.categories.size(), interner.tags.size());
+        return index;
+    }
+
+    private boolean startArray(JsonParser parser, Response response) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null || token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw new DecodeException(response.status(),
+                    "Expected a JSON array for catalog response but got " + token, response.request());
+        }
+        return true;
+    }
+
+    /**
+     * Advances to the next array element: true at an object, false at the end of the array.
+     * Null elements are skipped; anything else, including a body cut short, fails the decode
+     * rather than returning a truncated catalog.
+     */
+    private boolean nextElement(JsonParser parser, Response response) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) == JsonToken.VALUE_NULL) {
+            // skip null elements
+        }
+        if (token == JsonToken.START_OBJECT) {
+            return true;
+        }
+        if (token == JsonToken.END_ARRAY) {
+            return false;
+        }
+        throw new DecodeException(response.status(),
+                "Expected a JSON object in catalog response but got " + token, response.request());
+    }
+
+    /**
+     * Per-load intern tables; Category and Tag compare by id and name.
+     */
+    private static class Interner {
+        private final Map<Category, Category> categories = new HashMap<>();
+        private final Map<Tag, Tag> tags = new HashMap<>();
+        private final Map<List<Tag>, List<Tag>> tagLists = new HashMap<>();
+
+        Category category(Category category) {
+            return category == null ? null : categories.computeIfAbsent(category, c -> c);
+        }
+
+        List<Tag> tags(List<Tag> tagList) {
+            if (tagList == null) {
+                return null;
+            }
+            List<Tag> interned = new ArrayList<>(tagList.size());
+            for (Tag tag : tagList) {
+                if (tag != null) {
+                    interned.add(tags.computeIfAbsent(tag, t -> t));
+                }
+            }
+            return tagLists.computeIfAbsent(interned, List::copyOf);
+        }
+    }
+}
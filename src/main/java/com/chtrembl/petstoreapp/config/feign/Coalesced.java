@@ -0,0 +1,18 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts an idempotent ({@code @GetMapping}) Feign method into call coalescing: concurrent calls
+ * with the same arguments share one HTTP call. Only for reads whose response does not depend on
+ * the caller's session or user headers. See {@link SingleFlightCapability}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesced {
+}
@@ -0,0 +1,120 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.DeadlineExceededException;
+import feign.Capability;
+import feign.Client;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.Request;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds every Feign call by the current request's {@link RequestDeadline}. A call whose
+ * deadline has already passed fails with {@link DeadlineExceededException} before any other
+ * capability but {@link LatencyCapability}'s call timer runs, and each HTTP attempt (including
+ * retries) gets the configured timeouts cut down to the time left. Calls made outside a
+ * request keep the configured timeouts.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class DeadlineCapability implements Capability, Ordered {
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
+        return (target, dispatch) -> {
+            Map<Method, MethodHandler> bounded = new LinkedHashMap<>(dispatch);
+            bounded.replaceAll((method, handler) -> new DeadlineMethodHandler(
+                    target.name(), Feign.configKey(target.type(), method), handler));
+            return invocationHandlerFactory.create(target, bounded);
+        };
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> client.execute(request, boundedOptions(request, options));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+
+    private Request.Options boundedOptions(Request request, Request.Options options) {
+        long remainingMs = RequestDeadline.remainingMs();
+        if (remainingMs == Long.MAX_VALUE) {
+            return options;
+        }
+        if (remainingMs <= 0) {
+            throw new DeadlineExceededException("Request deadline passed before calling " + request.url());
+        }
+        if (remainingMs >= options.connectTimeoutMillis() && remainingMs >= options.readTimeoutMillis()) {
+            return options;
+        }
+        return new BoundedOptions(options, remainingMs);
+    }
+
+    /**
+     * The configured options of {@code options}, before any deadline cut them down.
+     */
+    static Request.Options configured(Request.Options options) {
+        return options instanceof BoundedOptions bounded ? bounded.configured : options;
+    }
+
+    /**
+     * Timeouts cut down to the time left, remembering the configured ones for transports
+     * that set up per-target state from them.
+     */
+    private static final class BoundedOptions extends Request.Options {
+
+        private final Request.Options configured;
+
+        BoundedOptions(Request.Options configured, long remainingMs) {
+            super(Math.min(configured.connectTimeoutMillis(), remainingMs), TimeUnit.MILLISECONDS,
+                    Math.min(configured.readTimeoutMillis(), remainingMs), TimeUnit.MILLISECONDS,
+                    configured.isFollowRedirects());
+            this.configured = configured;
+        }
+    }
+
+    private class DeadlineMethodHandler implements MethodHandler {
+
+        private final String methodKey;
+        private final MethodHandler delegate;
+        private final Counter rejections;
+
+        DeadlineMethodHandler(String targetName, String methodKey, MethodHandler delegate) {
+            this.methodKey = methodKey;
+            this.delegate = delegate;
+            this.rejections = Counter.builder("petstore.feign.rejected")
+                    .description("Downstream calls failed fast without reaching the target")
+                    .tag("client", targetName)
+                    .tag("method", methodKey)
+                    .tag("reason", "deadline-exceeded")
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Object invoke(Object[] argv) throws Throwable {
+            long remainingMs = RequestDeadline.remainingMs();
+            if (remainingMs <= 0) {
+                this.rejections.increment();
+                log.warn("Request deadline passed {}ms ago, not calling {}", -remainingMs, this.methodKey);
+                throw new DeadlineExceededException("Request deadline passed before calling " + this.methodKey);
+            }
+            return this.delegate.invoke(argv);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import feign.FeignException;
+import feign.RetryableException;
+
+import java.util.function.Predicate;
+
+/**
+ * Decides which Feign failures count against a target's circuit breaker: I/O errors and
+ * timeouts, 5xx responses and 429s. Other client errors, such as the 404 returned for a
+ * session without an order, say nothing about the target's health.
+ */
+public class DownstreamFailurePredicate implements Predicate<Throwable> {
+
+    @Override
+    public boolean test(Throwable throwable) {
+        if (throwable instanceof RetryableException) {
+            return true;
+        }
+        if (throwable instanceof FeignException fe) {
+            return fe.status() >= 500 || fe.status() == 429;
+        }
+        return false;
+    }
+}
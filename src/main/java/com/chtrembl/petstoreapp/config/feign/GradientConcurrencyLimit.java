@@ -0,0 +1,122 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.FeignLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Gradient-style adaptive concurrency limit for one downstream target.
+ * <p>
+ * Every HTTP attempt that reaches the target feeds its RTT in. The limit is scaled by the ratio
+ * of the long-term average RTT to the latest RTT: while the target answers as fast as usual the
+ * limit grows by a small queue allowance, and as its latency rises the limit shrinks towards the
+ * concurrency it can actually serve. Timeouts and overload errors cut the limit multiplicatively.
+ */
+class GradientConcurrencyLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double rttTolerance;
+    private final double smoothing;
+    private final int longWindow;
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock sampleLock = new ReentrantLock();
+    private volatile double limit;
+
+    private double longRttNanos;
+    private int samples;
+
+    GradientConcurrencyLimit(FeignLimitProperties.Limit properties) {
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(this.minLimit, properties.getMaxLimit());
+        this.rttTolerance = Math.max(1.0, properties.getRttTolerance());
+        this.smoothing = properties.getSmoothing();
+        this.longWindow = Math.max(1, properties.getLongWindow());
+        this.backoffRatio = properties.getBackoffRatio();
+        this.limit = clamp(properties.getInitialLimit());
+    }
+
+    /**
+     * Takes an in-flight slot if the target is below its current limit; never waits.
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = this.inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (this.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Gives the slot back once the call is over, however many attempts it made.
+     */
+    void release() {
+        this.inFlight.decrementAndGet();
+    }
+
+    /**
+     * Adjusts the limit from the outcome of one HTTP attempt.
+     *
+     * @param rttNanos          time the attempt took
+     * @param inFlightAtStart   calls in flight, including this one, when the attempt started
+     * @param dropped           whether the attempt timed out or the target reported overload
+     */
+    void sample(long rttNanos, int inFlightAtStart, boolean dropped) {
+        this.sampleLock.lock();
+        try {
+            adjustLimit(rttNanos, inFlightAtStart, dropped);
+        } finally {
+            this.sampleLock.unlock();
+        }
+    }
+
+    int getLimit() {
+        return (int) this.limit;
+    }
+
+    int getInFlight() {
+        return this.inFlight.get();
+    }
+
+    private void adjustLimit(long sampleNanos, int inFlightAtStart, boolean dropped) {
+        double current = this.limit;
+        long rttNanos = Math.max(1, sampleNanos);
+
+        if (dropped) {
+            this.limit = clamp(current * this.backoffRatio);
+            return;
+        }
+
+        if (this.samples < this.longWindow) {
+            this.samples++;
+        }
+        this.longRttNanos = this.longRttNanos == 0
+                ? rttNanos
+                : this.longRttNanos + (rttNanos - this.longRttNanos) / this.samples;
+
+        // Let the long-term average catch up quickly once a slow period is over
+        if (this.longRttNanos / rttNanos > 2) {
+            this.longRttNanos *= 0.95;
+        }
+
+        // A lightly used limit says nothing about how much more the target could take
+        if (inFlightAtStart < current / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, this.rttTolerance * this.longRttNanos / rttNanos));
+        double estimate = current * gradient + Math.sqrt(current);
+        this.limit = clamp(current * (1 - this.smoothing) + estimate * this.smoothing);
+    }
+
+    private double clamp(double value) {
+        return Math.max(this.minLimit, Math.min(this.maxLimit, value));
+    }
+}
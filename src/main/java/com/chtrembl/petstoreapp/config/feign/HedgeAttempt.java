@@ -0,0 +1,108 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One attempt of a hedged call, bound to the thread running it. The transport registers how
+ * to abort the attempt's HTTP exchange (close the connection, cancel the pool lease) as it
+ * goes, so the losing attempt can be stopped mid-read instead of running until its read
+ * timeout. Capabilities use {@link #isCurrentCancelled()} to tell an aborted loser from a
+ * failure of the target.
+ */
+@Slf4j
+final class HedgeAttempt {
+
+    private static final ThreadLocal<HedgeAttempt> CURRENT = new ThreadLocal<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private Runnable abort;
+    private boolean cancelled;
+
+    static HedgeAttempt current() {
+        return CURRENT.get();
+    }
+
+    static boolean isCurrentCancelled() {
+        HedgeAttempt attempt = CURRENT.get();
+        return attempt != null && attempt.isCancelled();
+    }
+
+    void bind() {
+        CURRENT.set(this);
+    }
+
+    void unbind() {
+        CURRENT.remove();
+        clearAbort();
+    }
+
+    /**
+     * Sets how to abort the exchange currently in progress, replacing the previous step's action.
+     * Runs it immediately if the attempt was already cancelled.
+     */
+    void onAbort(Runnable abort) {
+        this.lock.lock();
+        try {
+            if (!this.cancelled) {
+                this.abort = abort;
+                return;
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        run(abort);
+    }
+
+    /**
+     * Forgets the abort action once its exchange has finished, so a late cancel cannot touch it.
+     */
+    void clearAbort() {
+        this.lock.lock();
+        try {
+            this.abort = null;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Cancels the attempt and aborts its exchange, if one is in progress. The abort runs under
+     * the lock, so once {@link #clearAbort()} has returned it can no longer reach the attempt's
+     * thread. Returns false if the attempt was already cancelled.
+     */
+    boolean cancel() {
+        this.lock.lock();
+        try {
+            if (this.cancelled) {
+                return false;
+            }
+            this.cancelled = true;
+            if (this.abort != null) {
+                run(this.abort);
+                this.abort = null;
+            }
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    boolean isCancelled() {
+        this.lock.lock();
+        try {
+            return this.cancelled;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    private static void run(Runnable abort) {
+        try {
+            abort.run();
+        } catch (RuntimeException e) {
+            log.debug("Error aborting hedged attempt: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts an idempotent ({@code @GetMapping}) Feign method into request hedging: when the
+ * call is slower than the target's recent latency percentile, a second identical request
+ * is sent and the first response wins. See {@link HedgingCapability}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Hedged {
+}
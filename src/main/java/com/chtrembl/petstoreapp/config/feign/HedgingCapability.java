@@ -0,0 +1,364 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.FeignHedgeProperties;
+import com.chtrembl.petstoreapp.config.RequestContextTaskDecorator;
+import feign.Capability;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hedges {@link Hedged} read-only Feign methods. The call runs on the caller's thread; if it
+ * has not answered within the configured percentile of the method's recent latency, an
+ * identical second request is sent from the hedge executor. The first successful response
+ * wins and the other request's HTTP exchange is aborted through its {@link HedgeAttempt}.
+ * If the first request fails while the hedge is in flight, the caller waits for the hedge.
+ * Hedges are paid for from a per-target {@link RequestBudget}, so they stay a bounded share
+ * of the target's traffic.
+ * <p>
+ * Ordered after {@link SingleFlightCapability} and before the limiter and breaker, so each
+ * attempt takes its own slot and a coalesced call is hedged only once.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class HedgingCapability implements Capability, Ordered {
+
+    private static final TaskDecorator REQUEST_CONTEXT = new RequestContextTaskDecorator();
+
+    private final FeignHedgeProperties properties;
+    private final ThreadPoolTaskExecutor hedgeExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RequestBudget> budgets = new ConcurrentHashMap<>();
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
+        return (target, dispatch) -> {
+            FeignHedgeProperties.Hedge settings = properties.forClient(target.name());
+            if (!settings.getEnabled()) {
+                return invocationHandlerFactory.create(target, dispatch);
+            }
+
+            Map<Method, MethodHandler> hedging = new LinkedHashMap<>(dispatch);
+            hedging.replaceAll((method, handler) ->
+                    method.isAnnotationPresent(Hedged.class) && method.isAnnotationPresent(GetMapping.class)
+                            ? new HedgingMethodHandler(target.name(), Feign.configKey(target.type(), method),
+                            settings, budgets.computeIfAbsent(target.name(), name -> createBudget(name, settings)),
+                            handler)
+                            : handler);
+            return invocationHandlerFactory.create(target, hedging);
+        };
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 3;
+    }
+
+    private RequestBudget createBudget(String targetName, FeignHedgeProperties.Hedge settings) {
+        RequestBudget budget = new RequestBudget(settings.getBudgetRatio(), settings.getBudgetBurst());
+        Gauge.builder("petstore.feign.hedge.budget", budget, RequestBudget::getTokens)
+                .description("Hedge requests the Feign target may currently send")
+                .tag("client", targetName)
+                .register(meterRegistry);
+        return budget;
+    }
+
+    /**
+     * Sliding window of recent successful call latencies with a cached percentile.
+     */
+    private static final class LatencyWindow {
+
+        private static final int RECOMPUTE_EVERY = 20;
+
+        private final long[] samples;
+        private final double percentile;
+        private final int minSamples;
+        private final ReentrantLock lock = new ReentrantLock();
+        private int next;
+        private int count;
+        private int sinceRecompute;
+        private volatile long thresholdNanos = -1;
+
+        LatencyWindow(FeignHedgeProperties.Hedge settings) {
+            this.samples = new long[Math.max(1, settings.getWindow())];
+            this.percentile = Math.max(0, Math.min(1, settings.getPercentile()));
+            this.minSamples = Math.min(this.samples.length, Math.max(1, settings.getMinSamples()));
+        }
+
+        void record(long nanos) {
+            this.lock.lock();
+            try {
+                add(nanos);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        private void add(long nanos) {
+            this.samples[this.next] = nanos;
+            this.next = (this.next + 1) % this.samples.length;
+            if (this.count < this.samples.length) {
+                this.count++;
+            }
+            if (this.count >= this.minSamples && ++this.sinceRecompute >= Math.min(RECOMPUTE_EVERY, this.minSamples)) {
+                this.sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(this.samples, this.count);
+                Arrays.sort(sorted);
+                this.thresholdNanos = sorted[(int) Math.min(sorted.length - 1, Math.floor(this.percentile * sorted.length))];
+            }
+        }
+
+        /**
+         * Latency after which to hedge, or -1 while there are too few samples.
+         */
+        long thresholdNanos() {
+            return this.thresholdNanos;
+        }
+    }
+
+    private class HedgingMethodHandler implements MethodHandler {
+
+        private final String methodKey;
+        private final MethodHandler delegate;
+        private final RequestBudget budget;
+        private final LatencyWindow latencies;
+        private final long minDelayNanos;
+        private final Counter calls;
+        private final Counter hedges;
+        private final Counter hedgeWins;
+        private final Counter budgetExhausted;
+        private final Timer primaryCancelled;
+        private final Timer hedgeCancelled;
+
+        HedgingMethodHandler(String targetName, String methodKey, FeignHedgeProperties.Hedge settings,
+                             RequestBudget budget, MethodHandler delegate) {
+            this.methodKey = methodKey;
+            this.delegate = delegate;
+            this.budget = budget;
+            this.latencies = new LatencyWindow(settings);
+            this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(settings.getMinDelayMs());
+            this.calls = counter("petstore.feign.hedge.calls", "Calls to hedged Feign methods", targetName, methodKey);
+            this.hedges = counter("petstore.feign.hedge.sent", "Hedge requests sent after a slow first request",
+                    targetName, methodKey);
+            this.hedgeWins = counter("petstore.feign.hedge.wins", "Calls answered by the hedge request rather than the first",
+                    targetName, methodKey);
+            this.budgetExhausted = counter("petstore.feign.hedge.skipped", "Hedges not sent because the hedge budget was spent",
+                    targetName, methodKey);
+            this.primaryCancelled = cancelledTimer(targetName, methodKey, "primary");
+            this.hedgeCancelled = cancelledTimer(targetName, methodKey, "hedge");
+        }
+
+        private Timer cancelledTimer(String targetName, String methodKey, String attempt) {
+            return Timer.builder("petstore.feign.hedge.cancelled")
+                    .description("Losing hedged attempts aborted while still in flight, timed up to the abort")
+                    .tag("client", targetName)
+                    .tag("method", methodKey)
+                    .tag("attempt", attempt)
+                    .register(meterRegistry);
+        }
+
+        private Counter counter(String name, String description, String targetName, String methodKey) {
+            return Counter.builder(name)
+                    .description(description)
+                    .tag("client", targetName)
+                    .tag("method", methodKey)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Object invoke(Object[] argv) throws Throwable {
+            this.calls.increment();
+            this.budget.onRequest();
+
+            long thresholdNanos = this.latencies.thresholdNanos();
+            if (thresholdNanos < 0) {
+                // Still learning the method's latency: call directly
+                long start = System.nanoTime();
+                Object result = this.delegate.invoke(argv);
+                this.latencies.record(System.nanoTime() - start);
+                return result;
+            }
+
+            HedgedCall call = new HedgedCall(argv);
+            // Fires on a timer thread, so take the request context along from here
+            long delayNanos = Math.max(thresholdNanos, this.minDelayNanos);
+            CompletableFuture<Void> trigger = CompletableFuture.runAsync(REQUEST_CONTEXT.decorate(() -> hedge(call)),
+                    CompletableFuture.delayedExecutor(delayNanos, TimeUnit.NANOSECONDS));
+            try {
+                call.runPrimary();
+                trigger.cancel(false);
+                return call.winner.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            } finally {
+                trigger.cancel(false);
+                call.close();
+            }
+        }
+
+        private void hedge(HedgedCall call) {
+            if (call.winner.isDone()) {
+                return;
+            }
+            if (!this.budget.tryWithdraw()) {
+                this.budgetExhausted.increment();
+                return;
+            }
+            try {
+                if (call.startHedge()) {
+                    this.hedges.increment();
+                    log.debug("Sent hedge request for {}", this.methodKey);
+                }
+            } catch (TaskRejectedException e) {
+                log.debug("Hedge executor saturated, not hedging {}", this.methodKey);
+            }
+        }
+
+        /**
+         * The attempts of one hedged call racing to complete {@link #winner}: the primary on the
+         * caller's thread and at most one hedge on the hedge executor. The attempt that wins aborts
+         * the other; a failed attempt only fails the call once no other attempt is still running.
+         */
+        private final class HedgedCall {
+
+            private final Object[] argv;
+            private final CompletableFuture<Object> winner = new CompletableFuture<>();
+            private final AtomicInteger running = new AtomicInteger(1);
+            private final ReentrantLock lock = new ReentrantLock();
+            private final Attempt primary = new Attempt(false);
+            private volatile Attempt hedge;
+            private volatile Throwable failure;
+            private boolean closed;
+
+            HedgedCall(Object[] argv) {
+                this.argv = argv;
+            }
+
+            /**
+             * Runs the primary attempt on the calling thread.
+             */
+            void runPrimary() {
+                run(this.primary);
+                if (this.primary.handle.isCancelled()) {
+                    // Aborting the exchange may have interrupted this thread; the caller must not see that
+                    Thread.interrupted();
+                }
+            }
+
+            /**
+             * Submits the hedge attempt, unless the call is already decided.
+             */
+            boolean startHedge() {
+                this.lock.lock();
+                try {
+                    if (this.closed || this.winner.isDone()) {
+                        return false;
+                    }
+                    Attempt attempt = new Attempt(true);
+                    this.running.incrementAndGet();
+                    try {
+                        attempt.future = hedgeExecutor.submit(() -> run(attempt));
+                    } catch (TaskRejectedException e) {
+                        finished();
+                        throw e;
+                    }
+                    this.hedge = attempt;
+                    return true;
+                } finally {
+                    this.lock.unlock();
+                }
+            }
+
+            /**
+             * Aborts the hedge if it is still in flight once the caller has its answer.
+             */
+            void close() {
+                this.lock.lock();
+                try {
+                    this.closed = true;
+                } finally {
+                    this.lock.unlock();
+                }
+                Attempt attempt = this.hedge;
+                if (attempt != null) {
+                    cancel(attempt);
+                }
+            }
+
+            private void run(Attempt attempt) {
+                attempt.handle.bind();
+                try {
+                    Object result = delegate.invoke(this.argv);
+                    latencies.record(System.nanoTime() - attempt.start);
+                    if (this.winner.complete(result)) {
+                        if (attempt.isHedge) {
+                            hedgeWins.increment();
+                            cancel(this.primary);
+                        } else if (this.hedge != null) {
+                            cancel(this.hedge);
+                        }
+                    }
+                } catch (Throwable t) {
+                    this.failure = t;
+                } finally {
+                    attempt.done = true;
+                    attempt.handle.unbind();
+                }
+                finished();
+            }
+
+            private void finished() {
+                if (this.running.decrementAndGet() == 0 && this.failure != null) {
+                    this.winner.completeExceptionally(this.failure);
+                }
+            }
+
+            private void cancel(Attempt attempt) {
+                if (attempt.done || !attempt.handle.cancel()) {
+                    return;
+                }
+                if (attempt.future != null) {
+                    attempt.future.cancel(false);
+                }
+                (attempt.isHedge ? hedgeCancelled : primaryCancelled)
+                        .record(System.nanoTime() - attempt.start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private static final class Attempt {
+
+            private final boolean isHedge;
+            private final HedgeAttempt handle = new HedgeAttempt();
+            private final long start = System.nanoTime();
+            private volatile Future<?> future;
+            private volatile boolean done;
+
+            Attempt(boolean isHedge) {
+                this.isHedge = isHedge;
+            }
+        }
+    }
+}
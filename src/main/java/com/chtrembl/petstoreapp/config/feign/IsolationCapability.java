@@ -0,0 +1,122 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.exception.CallRejectedException;
+import feign.Capability;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs every Feign call of a target through that target's bulkhead and circuit breaker,
+ * both named after the Feign client (pet-service, product-service, order-service) and
+ * configured under {@code resilience4j.bulkhead} and {@code resilience4j.circuitbreaker}.
+ * A full bulkhead or an open breaker fails the call immediately with
+ * {@link BulkheadFullException} or {@link CallNotPermittedException}, so a hanging target
+ * only ties up its own share of request threads.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class IsolationCapability implements Capability {
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
+        return (target, dispatch) -> {
+            CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(target.name());
+            Bulkhead bulkhead = bulkheadRegistry.bulkhead(target.name());
+
+            Map<Method, MethodHandler> isolated = new LinkedHashMap<>(dispatch);
+            isolated.replaceAll((method, handler) -> new IsolatedMethodHandler(
+                    target.name(), Feign.configKey(target.type(), method), circuitBreaker, bulkhead, handler));
+            return invocationHandlerFactory.create(target, isolated);
+        };
+    }
+
+    private class IsolatedMethodHandler implements MethodHandler {
+
+        private final String methodKey;
+        private final CircuitBreaker circuitBreaker;
+        private final Bulkhead bulkhead;
+        private final MethodHandler delegate;
+        private final Counter bulkheadRejections;
+        private final Counter circuitOpenRejections;
+
+        IsolatedMethodHandler(String targetName, String methodKey, CircuitBreaker circuitBreaker,
+                              Bulkhead bulkhead, MethodHandler delegate) {
+            this.methodKey = methodKey;
+            this.circuitBreaker = circuitBreaker;
+            this.bulkhead = bulkhead;
+            this.delegate = delegate;
+            this.bulkheadRejections = rejectionCounter(targetName, methodKey, "bulkhead-full");
+            this.circuitOpenRejections = rejectionCounter(targetName, methodKey, "circuit-open");
+        }
+
+        private Counter rejectionCounter(String targetName, String methodKey, String reason) {
+            return Counter.builder("petstore.feign.rejected")
+                    .description("Downstream calls failed fast without reaching the target")
+                    .tag("client", targetName)
+                    .tag("method", methodKey)
+                    .tag("reason", reason)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Object invoke(Object[] argv) throws Throwable {
+            if (!this.bulkhead.tryAcquirePermission()) {
+                this.bulkheadRejections.increment();
+                log.warn("Bulkhead {} is full, rejecting call to {}", this.bulkhead.getName(), this.methodKey);
+                throw BulkheadFullException.createBulkheadFullException(this.bulkhead);
+            }
+
+            try {
+                if (!this.circuitBreaker.tryAcquirePermission()) {
+                    this.circuitOpenRejections.increment();
+                    log.warn("Circuit breaker {} is {}, rejecting call to {}",
+                            this.circuitBreaker.getName(), this.circuitBreaker.getState(), this.methodKey);
+                    throw CallNotPermittedException.createCallNotPermittedException(this.circuitBreaker);
+                }
+
+                long start = this.circuitBreaker.getCurrentTimestamp();
+                try {
+                    Object result = this.delegate.invoke(argv);
+                    this.circuitBreaker.onSuccess(
+                            this.circuitBreaker.getCurrentTimestamp() - start, this.circuitBreaker.getTimestampUnit());
+                    return result;
+                } catch (CallRejectedException e) {
+                    // Stopped before reaching the target (e.g. its deadline passed during a retry backoff)
+                    this.circuitBreaker.releasePermission();
+                    throw e;
+                } catch (Throwable t) {
+                    if (HedgeAttempt.isCurrentCancelled()) {
+                        // Aborted as a losing hedge attempt, says nothing about the target
+                        this.circuitBreaker.releasePermission();
+                        throw t;
+                    }
+                    // The breaker's failure predicate decides whether this counts against the target
+                    this.circuitBreaker.onError(
+                            this.circuitBreaker.getCurrentTimestamp() - start, this.circuitBreaker.getTimestampUnit(), t);
+                    throw t;
+                }
+            } finally {
+                this.bulkhead.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.exception.CallRejectedException;
+import feign.Capability;
+import feign.Client;
+import feign.Feign;
+import feign.FeignException;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import feign.MethodMetadata;
+import feign.Request;
+import feign.Response;
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.core.Ordered;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Times Feign calls at two levels. {@code petstore.feign.requests} times each call as its
+ * caller sees it, from invocation until the body is decoded, including retries, hedges and
+ * calls rejected without reaching the target, tagged by target, Feign method, outcome and
+ * exception. {@code petstore.feign.attempts} times each HTTP attempt up to its response
+ * headers, tagged by target, Feign method, outcome and status. Percentile histograms are
+ * configured under {@code management.metrics.distribution}.
+ * <p>
+ * Applied first, so its call timer wraps every other capability and its attempt timer sits
+ * right around the transport.
+ */
+@RequiredArgsConstructor
+public class LatencyCapability implements Capability, Ordered {
+
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final String REJECTED = "REJECTED";
+    private static final String IO_ERROR = "IO_ERROR";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
+        return (target, dispatch) -> {
+            Map<Method, MethodHandler> timed = new LinkedHashMap<>(dispatch);
+            timed.replaceAll((method, handler) -> new TimedMethodHandler(
+                    target.name(), Feign.configKey(target.type(), method), handler));
+            return invocationHandlerFactory.create(target, timed);
+        };
+    }
+
+    @Override
+    public Client enrich(Client client) {
+        return (request, options) -> {
+            Timer.Sample sample = Timer.start(this.meterRegistry);
+            Response response;
+            try {
+                response = client.execute(request, options);
+            } catch (IOException | RuntimeException e) {
+                sample.stop(attemptTimer(request, IO_ERROR, e.getClass().getSimpleName()));
+                throw e;
+            }
+            sample.stop(attemptTimer(request, Outcome.forStatus(response.status()).name(),
+                    String.valueOf(response.status())));
+            return response;
+        };
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    static String targetName(Request request) {
+        return request.requestTemplate() != null && request.requestTemplate().feignTarget() != null
+                ? request.requestTemplate().feignTarget().name()
+                : UNKNOWN;
+    }
+
+    private static String methodKey(Request request) {
+        MethodMetadata metadata = request.requestTemplate() != null ? request.requestTemplate().methodMetadata() : null;
+        return metadata != null ? metadata.configKey() : UNKNOWN;
+    }
+
+    private static String callOutcome(Throwable t) {
+        if (t instanceof CallRejectedException || t instanceof CallNotPermittedException
+                || t instanceof BulkheadFullException) {
+            return REJECTED;
+        }
+        if (t instanceof FeignException fe && fe.status() > 0) {
+            return Outcome.forStatus(fe.status()).name();
+        }
+        return t instanceof RetryableException ? IO_ERROR : UNKNOWN;
+    }
+
+    private Timer attemptTimer(Request request, String outcome, String status) {
+        return Timer.builder("petstore.feign.attempts")
+                .description("HTTP attempts of Feign calls to the downstream services")
+                .tag("client", targetName(request))
+                .tag("method", methodKey(request))
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .register(this.meterRegistry);
+    }
+
+    private class TimedMethodHandler implements MethodHandler {
+
+        private final String targetName;
+        private final String methodKey;
+        private final MethodHandler delegate;
+
+        TimedMethodHandler(String targetName, String methodKey, MethodHandler delegate) {
+            this.targetName = targetName;
+            this.methodKey = methodKey;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Object invoke(Object[] argv) throws Throwable {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                Object result = this.delegate.invoke(argv);
+                sample.stop(callTimer(Outcome.SUCCESS.name(), "none"));
+                return result;
+            } catch (Throwable t) {
+                sample.stop(callTimer(callOutcome(t), t.getClass().getSimpleName()));
+                throw t;
+            }
+        }
+
+        private Timer callTimer(String outcome, String exception) {
+            return Timer.builder("petstore.feign.requests")
+                    .description("Feign calls to the downstream services, including retries, hedges and rejections")
+                    .tag("client", this.targetName)
+                    .tag("method", this.methodKey)
+                    .tag("outcome", outcome)
+                    .tag("exception", exception)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.FeignPoolProperties;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import feign.http2client.Http2Client;
+import feign.httpclient.ApacheHttpClient;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HTTP;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Feign transport that gives every downstream target its own connection pool, so a burst
+ * of catalog traffic cannot take the connections order calls need. Each target gets a
+ * pooled Apache HTTP/1.1 client, or the JDK HTTP/2 client when configured, created on first use.
+ * <p>
+ * Exchanges made for a {@link HedgeAttempt} register how to abort them: the HTTP/1.1 path
+ * cancels the pool lease and then shuts down the leased connection, the HTTP/2 path
+ * interrupts the sending thread, which makes the JDK client cancel the exchange.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class PooledTargetClient implements Client, DisposableBean {
+
+    private static final String DEFAULT_TARGET = "default";
+
+    private final FeignPoolProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, TargetTransport> transports = new ConcurrentHashMap<>();
+
+    @Override
+    public Response execute(Request request, Request.Options options) throws IOException {
+        String clientName = request.requestTemplate() != null && request.requestTemplate().feignTarget() != null
+                ? request.requestTemplate().feignTarget().name()
+                : DEFAULT_TARGET;
+        if (HedgeAttempt.isCurrentCancelled()) {
+            throw new IOException("Hedged attempt to " + request.url() + " was cancelled");
+        }
+        return transports.computeIfAbsent(clientName, name -> createTransport(name, options))
+                .client().execute(request, options);
+    }
+
+    @Override
+    public void destroy() {
+        transports.values().forEach(TargetTransport::close);
+        transports.clear();
+    }
+
+    private TargetTransport createTransport(String clientName, Request.Options options) {
+        FeignPoolProperties.Pool pool = properties.forClient(clientName);
+
+        if (pool.getHttp2()) {
+            return createHttp2Transport(clientName, DeadlineCapability.configured(options));
+        }
+
+        log.info("Feign target {} uses a pooled HTTP/1.1 client (max {} per route, {} total)",
+                clientName, pool.getMaxConnectionsPerRoute(), pool.getMaxConnectionsTotal());
+
+        MeteredConnectionManager connectionManager = new MeteredConnectionManager(clientName);
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxConnectionsPerRoute());
+        connectionManager.setMaxTotal(pool.getMaxConnectionsTotal());
+        registerPoolGauges(clientName, connectionManager);
+
+        long keepAliveMs = TimeUnit.SECONDS.toMillis(pool.getKeepAliveSeconds());
+        CloseableHttpClient httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(pool.getLeaseTimeoutMs().intValue())
+                        .build())
+                .setKeepAliveStrategy((response, context) -> {
+                    BasicHeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+                    while (it.hasNext()) {
+                        HeaderElement element = it.nextElement();
+                        if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                            try {
+                                return Math.min(TimeUnit.SECONDS.toMillis(Long.parseLong(element.getValue())), keepAliveMs);
+                            } catch (NumberFormatException ignored) {
+                                // fall back to the configured keep-alive
+                            }
+                        }
+                    }
+                    return keepAliveMs;
+                })
+                .evictIdleConnections(pool.getIdleEvictSeconds(), TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .disableAutomaticRetries()
+                .build();
+
+        return new TargetTransport(new ApacheHttpClient(httpClient), httpClient, null);
+    }
+
+    /**
+     * JDK HTTP/2 client with the target's configured connect timeout and redirect policy. Each
+     * call is sent with those same settings, so Feign's {@link Http2Client} always uses this
+     * client instead of creating one per distinct set of options; the read timeout, which the
+     * deadline may shorten, is applied per request.
+     */
+    private TargetTransport createHttp2Transport(String clientName, Request.Options configured) {
+        log.info("Feign target {} uses the HTTP/2 client (connect timeout {}ms)",
+                clientName, configured.connectTimeoutMillis());
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "feign-h2-" + clientName + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofMillis(configured.connectTimeoutMillis()))
+                .followRedirects(configured.isFollowRedirects() ? HttpClient.Redirect.ALWAYS : HttpClient.Redirect.NEVER)
+                .executor(executor)
+                .build();
+
+        AtomicInteger inFlight = new AtomicInteger();
+        Gauge.builder("petstore.feign.http2.inflight", inFlight, AtomicInteger::get)
+                .description("Requests the Feign target's HTTP/2 client is currently exchanging")
+                .tag("client", clientName)
+                .register(meterRegistry);
+
+        Client client = abortByInterrupt(new Http2Client(httpClient));
+        Client metered = (request, options) -> {
+            Request.Options sent = options.connectTimeoutMillis() == configured.connectTimeoutMillis()
+                    && options.isFollowRedirects() == configured.isFollowRedirects()
+                    ? options
+                    : new Request.Options(configured.connectTimeoutMillis(), TimeUnit.MILLISECONDS,
+                    options.readTimeoutMillis(), TimeUnit.MILLISECONDS, configured.isFollowRedirects());
+            inFlight.incrementAndGet();
+            try {
+                return client.execute(request, sent);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        };
+        return new TargetTransport(metered, null, executor);
+    }
+
+    private static Client abortByInterrupt(Client client) {
+        return (request, options) -> {
+            HedgeAttempt attempt = HedgeAttempt.current();
+            if (attempt == null) {
+                return client.execute(request, options);
+            }
+            Thread sender = Thread.currentThread();
+            attempt.onAbort(sender::interrupt);
+            try {
+                return client.execute(request, options);
+            } finally {
+                // The body is fully read by now, nothing left to abort
+                attempt.clearAbort();
+            }
+        };
+    }
+
+    private void registerPoolGauges(String clientName, PoolingHttpClientConnectionManager connectionManager) {
+        registerPoolGauge(clientName, "leased", connectionManager, PoolStats::getLeased);
+        registerPoolGauge(clientName, "available", connectionManager, PoolStats::getAvailable);
+        registerPoolGauge(clientName, "pending", connectionManager, PoolStats::getPending);
+        registerPoolGauge(clientName, "max", connectionManager, PoolStats::getMax);
+    }
+
+    private void registerPoolGauge(String clientName, String state,
+                                   PoolingHttpClientConnectionManager connectionManager,
+                                   ToDoubleFunction<PoolStats> value) {
+        Gauge.builder("petstore.feign.pool.connections", connectionManager, cm -> value.applyAsDouble(cm.getTotalStats()))
+                .description("Connections of the Feign target's pool by state")
+                .tag("client", clientName)
+                .tag("state", state)
+                .register(meterRegistry);
+    }
+
+    private record TargetTransport(Client client, CloseableHttpClient httpClient, ExecutorService executor) {
+
+        void close() {
+            try {
+                if (httpClient != null) {
+                    httpClient.close();
+                }
+            } catch (IOException e) {
+                log.debug("Error closing Feign HTTP client: {}", e.getMessage());
+            }
+            if (executor != null) {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Connection manager that records how long callers wait to lease a pooled connection.
+     */
+    private class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final Timer leaseWaitTimer;
+        private final Counter leaseTimeoutCounter;
+
+        MeteredConnectionManager(String clientName) {
+            this.leaseWaitTimer = Timer.builder("petstore.feign.pool.lease.wait")
+                    .description("Time spent waiting to lease a pooled connection")
+                    .tag("client", clientName)
+                    .register(meterRegistry);
+            this.leaseTimeoutCounter = Counter.builder("petstore.feign.pool.lease.timeouts")
+                    .description("Lease attempts that gave up because the pool stayed exhausted")
+                    .tag("client", clientName)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+            ConnectionRequest request = super.requestConnection(route, state);
+            return new ConnectionRequest() {
+                @Override
+                public HttpClientConnection get(long timeout, TimeUnit timeUnit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                    HedgeAttempt attempt = HedgeAttempt.current();
+                    if (attempt != null) {
+                        attempt.onAbort(request::cancel);
+                    }
+                    long start = System.nanoTime();
+                    try {
+                        HttpClientConnection connection = request.get(timeout, timeUnit);
+                        if (attempt != null) {
+                            // Once released, the pool detaches this proxy and shutdown() becomes a no-op
+                            attempt.onAbort(() -> shutdown(connection));
+                        }
+                        return connection;
+                    } catch (ConnectionPoolTimeoutException e) {
+                        leaseTimeoutCounter.increment();
+                        throw e;
+                    } finally {
+                        leaseWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    }
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        private static void shutdown(HttpClientConnection connection) {
+            try {
+                connection.shutdown();
+            } catch (IOException e) {
+                log.debug("Error aborting Feign connection: {}", e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Token bucket that lets extra requests (hedges, retries) grow only with regular traffic.
+ * Each regular request deposits {@code ratio} tokens, each extra request withdraws one,
+ * so extra requests stay within {@code ratio} of the traffic over time. The bucket holds
+ * at most {@code maxTokens}, which bounds how many extra requests a quiet period can save up.
+ */
+class RequestBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private final ReentrantLock lock = new ReentrantLock();
+    private double tokens;
+
+    RequestBudget(double ratio, double maxTokens) {
+        this.ratio = Math.max(0, ratio);
+        this.maxTokens = Math.max(1, maxTokens);
+        this.tokens = this.maxTokens;
+    }
+
+    void onRequest() {
+        this.lock.lock();
+        try {
+            this.tokens = Math.min(this.maxTokens, this.tokens + this.ratio);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    boolean tryWithdraw() {
+        this.lock.lock();
+        try {
+            if (this.tokens < 1) {
+                return false;
+            }
+            this.tokens -= 1;
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    double getTokens() {
+        this.lock.lock();
+        try {
+            return this.tokens;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.DeadlineExceededException;
+import feign.Capability;
+import feign.Feign;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Coalesces concurrent identical calls to {@link Coalesced} read-only ({@link GetMapping}) Feign
+ * methods. The first caller performs the HTTP call; callers arriving while it is in flight
+ * wait for and share its result (or failure) instead of opening their own connection.
+ * <p>
+ * A waiting caller gives up at its own request deadline. If the first caller's call was stopped
+ * by that caller's deadline, a waiting caller makes the call itself rather than inherit it.
+ * <p>
+ * Applied right after {@link DeadlineCapability} so its handler wraps all the others: coalesced
+ * callers never take a bulkhead permit or count against a circuit breaker.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class SingleFlightCapability implements Capability, Ordered {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<CallKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public InvocationHandlerFactory enrich(InvocationHandlerFactory invocationHandlerFactory) {
+        return (target, dispatch) -> {
+            Map<Method, MethodHandler> coalescing = new LinkedHashMap<>(dispatch);
+            coalescing.replaceAll((method, handler) ->
+                    method.isAnnotationPresent(Coalesced.class) && method.isAnnotationPresent(GetMapping.class)
+                            ? new SingleFlightMethodHandler(target.name(), Feign.configKey(target.type(), method),
+                            handler)
+                            : handler);
+            return invocationHandlerFactory.create(target, coalescing);
+        };
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 2;
+    }
+
+    private record CallKey(String methodKey, List<Object> arguments) {
+    }
+
+    private class SingleFlightMethodHandler implements MethodHandler {
+
+        private final String methodKey;
+        private final MethodHandler delegate;
+        private final Counter coalescedCounter;
+
+        SingleFlightMethodHandler(String targetName, String methodKey, MethodHandler delegate) {
+            this.methodKey = methodKey;
+            this.delegate = delegate;
+            this.coalescedCounter = Counter.builder("petstore.feign.coalesced")
+                    .description("Downstream calls answered by sharing an identical in-flight call")
+                    .tag("client", targetName)
+                    .tag("method", methodKey)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Object invoke(Object[] argv) throws Throwable {
+            CallKey key = new CallKey(this.methodKey, argv == null ? List.of() : Arrays.asList(argv.clone()));
+            CompletableFuture<Object> call = new CompletableFuture<>();
+            CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+
+            if (existing != null) {
+                this.coalescedCounter.increment();
+                log.debug("Coalescing call to {} with in-flight request", this.methodKey);
+                try {
+                    return await(existing);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof DeadlineExceededException) {
+                        // The first caller's deadline, not ours
+                        return this.delegate.invoke(argv);
+                    }
+                    throw e.getCause() != null ? e.getCause() : e;
+                }
+            }
+
+            try {
+                Object result = this.delegate.invoke(argv);
+                call.complete(result);
+                return result;
+            } catch (Throwable t) {
+                call.completeExceptionally(t);
+                throw t;
+            } finally {
+                inFlight.remove(key, call);
+            }
+        }
+
+        private Object await(CompletableFuture<Object> call) throws InterruptedException, ExecutionException {
+            long remainingMs = RequestDeadline.remainingMs();
+            if (remainingMs == Long.MAX_VALUE) {
+                return call.get();
+            }
+            try {
+                return call.get(Math.max(0, remainingMs), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new DeadlineExceededException("Request deadline passed waiting for coalesced call to "
+                        + this.methodKey);
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.chtrembl.petstoreapp.config.health;
+
+import com.chtrembl.petstoreapp.config.HealthProbeProperties;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Probes the downstream services' health endpoints in the background and keeps the latest
+ * result per service, so the health indicators answer from memory instead of calling out
+ * on the request thread. Probes of one round run in parallel through the shared WebClient.
+ * Listeners are told when a service's status changes, not on every probe.
+ */
+@Component
+@Slf4j
+public class DownstreamHealthMonitor implements DisposableBean {
+
+    private final HealthProbeProperties properties;
+    private final WebClient petStoreWebClient;
+    private final List<Probe> probes;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ProbeResult> results = new ConcurrentHashMap<>();
+    private final List<BiConsumer<String, Health>> statusChangeListeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService probeExecutor;
+
+    public DownstreamHealthMonitor(HealthProbeProperties properties, WebClient petStoreWebClient,
+                                   ContainerEnvironment containerEnvironment) {
+        this.properties = properties;
+        this.petStoreWebClient = petStoreWebClient;
+        this.probes = List.of(
+                new Probe("petService", "Pet service",
+                        containerEnvironment::getPetStorePetServiceURL, "/petstorepetservice/v2/health"),
+                new Probe("productService", "Product service",
+                        containerEnvironment::getPetStoreProductServiceURL, "/petstoreproductservice/v2/health"),
+                new Probe("orderService", "Order service",
+                        containerEnvironment::getPetStoreOrderServiceURL, "/petstoreorderservice/v2/health"));
+        this.probeExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "downstream-health-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        this.probeExecutor.scheduleWithFixedDelay(this::refresh, 0,
+                this.properties.getRefreshIntervalMs(), TimeUnit.MILLISECONDS);
+        log.info("Downstream health probes scheduled [Interval: {}ms, Timeout: {}ms, Parallelism: {}]",
+                this.properties.getRefreshIntervalMs(), this.properties.getTimeoutMs(),
+                this.properties.getParallelism());
+    }
+
+    /**
+     * Returns the last probe result of the named service with the age of the snapshot.
+     */
+    public Health health(String name) {
+        ProbeResult result = this.results.get(name);
+        if (result == null) {
+            return Health.unknown()
+                    .withDetail("reason", "Not probed yet")
+                    .build();
+        }
+
+        long ageMs = Math.max(0, System.currentTimeMillis() - result.checkedAt());
+        Health.Builder builder = ageMs > this.properties.getMaxSnapshotAgeMs()
+                ? Health.unknown().withDetail("reason", "Health snapshot is stale")
+                : Health.status(result.health().getStatus());
+        return builder
+                .withDetails(result.health().getDetails())
+                .withDetail("checkedAt", Instant.ofEpochMilli(result.checkedAt()).toString())
+                .withDetail("snapshotAgeMs", ageMs)
+                .build();
+    }
+
+    /**
+     * Returns the current health of every probed service, keyed by indicator name.
+     */
+    public Map<String, Health> snapshot() {
+        Map<String, Health> snapshot = new LinkedHashMap<>();
+        this.probes.forEach(probe -> snapshot.put(probe.name(), health(probe.name())));
+        return snapshot;
+    }
+
+    /**
+     * Registers a listener called with a service's indicator name and new health whenever its
+     * status differs from the previous probe. Listeners run on an HTTP client I/O thread and must not block.
+     */
+    public void addStatusChangeListener(BiConsumer<String, Health> listener) {
+        this.statusChangeListeners.add(listener);
+    }
+
+    /**
+     * Runs one probe round. Blocks only the probe thread, for at most about one probe timeout.
+     */
+    void refresh() {
+        try {
+            Flux.fromIterable(this.probes)
+                    .flatMap(probe -> probe(probe).doOnNext(health -> record(probe.name(), health)),
+                            Math.max(1, this.properties.getParallelism()))
+                    .then()
+                    .block();
+        } catch (RuntimeException e) {
+            log.warn("Downstream health probe round failed: {}", e.getMessage());
+        }
+    }
+
+    private void record(String name, Health health) {
+        ProbeResult previous = this.results.put(name, new ProbeResult(health, System.currentTimeMillis()));
+        if (previous != null && previous.health().getStatus().equals(health.getStatus())) {
+            return;
+        }
+
+        log.info("{} health is now {}", name, health.getStatus());
+        Health current = health(name);
+        for (BiConsumer<String, Health> listener : this.statusChangeListeners) {
+            try {
+                listener.accept(name, current);
+            } catch (RuntimeException e) {
+                log.warn("Health status listener failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Mono<Health> probe(Probe probe) {
+        String baseUrl = probe.baseUrl().get();
+        if (baseUrl == null || baseUrl.isEmpty()) {
+            return Mono.just(Health.down()
+                    .withDetail("reason", probe.displayName() + " URL not configured")
+                    .withDetail("url", "not set")
+                    .build());
+        }
+
+        return this.petStoreWebClient.get()
+                .uri(baseUrl + probe.path())
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(Duration.ofMillis(this.properties.getTimeoutMs()))
+                .map(response -> toHealth(baseUrl, response))
+                .onErrorResume(WebClientResponseException.class, e -> {
+                    log.warn("{} health check failed with HTTP {}: {}", probe.displayName(), e.getStatusCode(), e.getMessage());
+                    return Mono.just(Health.down()
+                            .withDetail("url", baseUrl)
+                            .withDetail("error", "HTTP " + e.getStatusCode().value() + ": " + e.getStatusText())
+                            .withDetail("responseBody", e.getResponseBodyAsString())
+                            .build());
+                })
+                .onErrorResume(e -> {
+                    log.warn("{} health check failed: {}", probe.displayName(), e.getMessage());
+                    return Mono.just(Health.down()
+                            .withDetail("url", baseUrl)
+                            .withDetail("error", String.valueOf(e.getMessage()))
+                            .withDetail("errorType", e.getClass().getSimpleName())
+                            .build());
+                });
+    }
+
+    private Health toHealth(String baseUrl, String response) {
+        JsonNode healthData;
+        try {
+            healthData = objectMapper.readTree(response);
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable health response: " + e.getMessage(), e);
+        }
+        String status = healthData.get("status").asText();
+        String version = healthData.has("version") ? healthData.get("version").asText() : "unknown";
+        String date = healthData.has("date") ? healthData.get("date").asText() : "unknown";
+        String container = healthData.has("container") ? healthData.get("container").asText() : "unknown";
+
+        Health.Builder builder = "UP".equalsIgnoreCase(status)
+                ? Health.up().withDetail("status", "Service responding")
+                : Health.down().withDetail("reason", "Service status: " + status);
+        return builder
+                .withDetail("url", baseUrl)
+                .withDetail("version", version)
+                .withDetail("appDate", date)
+                .withDetail("container", container)
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        this.probeExecutor.shutdownNow();
+    }
+
+    private record Probe(String name, String displayName, Supplier<String> baseUrl, String path) {
+    }
+
+    private record ProbeResult(Health health, long checkedAt) {
+    }
+}
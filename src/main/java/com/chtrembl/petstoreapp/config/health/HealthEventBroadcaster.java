@@ -0,0 +1,215 @@
+package com.chtrembl.petstoreapp.config.health;
+
+import com.chtrembl.petstoreapp.config.HealthProbeProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.actuate.health.StatusAggregator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes the downstream services' health to subscribed pages as Server-Sent Events. Each
+ * subscriber gets the current state on connect and again whenever a service changes status,
+ * all served from {@link DownstreamHealthMonitor}'s snapshot. An idle subscriber costs an
+ * open connection and a periodic keep-alive comment, and never triggers a probe.
+ * <p>
+ * Writes go out on virtual threads, one stream at a time each, so a page that stops reading
+ * only holds up its own stream; it is closed once a write to it outlasts the send timeout.
+ */
+@Component
+@Slf4j
+public class HealthEventBroadcaster implements DisposableBean {
+
+    private static final String HEALTH_EVENT = "health";
+
+    private final HealthProbeProperties properties;
+    private final DownstreamHealthMonitor downstreamHealthMonitor;
+    private final ObjectMapper objectMapper;
+    private final Map<SseEmitter, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService streamExecutor;
+    private final ExecutorService writeExecutor;
+    private final Counter droppedCounter;
+
+    public HealthEventBroadcaster(HealthProbeProperties properties, DownstreamHealthMonitor downstreamHealthMonitor,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.downstreamHealthMonitor = downstreamHealthMonitor;
+        this.objectMapper = objectMapper;
+        this.streamExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "health-event-stream");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.writeExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("health-event-write-", 0).factory());
+        Gauge.builder("petstore.health.stream.subscribers", this.subscribers, Map::size)
+                .description("Open health event streams")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("petstore.health.stream.dropped")
+                .description("Health event streams closed because the page stopped reading")
+                .register(meterRegistry);
+
+        // Status changes arrive on an HTTP client I/O thread; write to the streams from our own
+        downstreamHealthMonitor.addStatusChangeListener((name, health) -> this.streamExecutor.execute(this::broadcast));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        this.streamExecutor.scheduleWithFixedDelay(this::heartbeat, this.properties.getStreamHeartbeatMs(),
+                this.properties.getStreamHeartbeatMs(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a health event stream that starts with the current state.
+     */
+    public SseEmitter subscribe() {
+        if (this.subscribers.size() >= this.properties.getStreamMaxSubscribers()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many health stream subscribers");
+        }
+
+        SseEmitter emitter = new SseEmitter(this.properties.getStreamTimeoutMs());
+        emitter.onCompletion(() -> this.subscribers.remove(emitter));
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> this.subscribers.remove(emitter));
+        Subscriber subscriber = new Subscriber(emitter);
+        this.subscribers.put(emitter, subscriber);
+
+        String state = currentState();
+        if (state != null) {
+            subscriber.offer(SseEmitter.event().name(HEALTH_EVENT).data(state), true);
+        }
+        return emitter;
+    }
+
+    private void broadcast() {
+        String state = currentState();
+        if (state == null || this.subscribers.isEmpty()) {
+            return;
+        }
+        log.debug("Pushing health change to {} subscribers", this.subscribers.size());
+        this.subscribers.values().forEach(subscriber ->
+                subscriber.offer(SseEmitter.event().name(HEALTH_EVENT).data(state), true));
+    }
+
+    private void heartbeat() {
+        this.subscribers.values().forEach(subscriber ->
+                subscriber.offer(SseEmitter.event().comment("keep-alive"), false));
+    }
+
+    /**
+     * Serializes the snapshot once per change, in the shape of {@code /actuator/health}.
+     */
+    private String currentState() {
+        Map<String, Health> components = this.downstreamHealthMonitor.snapshot();
+        Status status = StatusAggregator.getDefault().getAggregateStatus(
+                components.values().stream().map(Health::getStatus).collect(Collectors.toSet()));
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("status", status.getCode());
+        state.put("components", components);
+        try {
+            return this.objectMapper.writeValueAsString(state);
+        } catch (JsonProcessingException e) {
+            log.warn("Unable to serialize health state: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        this.streamExecutor.shutdownNow();
+        this.writeExecutor.shutdownNow();
+        this.subscribers.keySet().forEach(SseEmitter::complete);
+    }
+
+    /**
+     * One page's stream. Its events are written by one thread at a time, in order; while a write
+     * is in progress only the newest event waits behind it, since each state event carries the
+     * whole state. A keep-alive never replaces a waiting state event.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final AtomicReference<SseEmitter.SseEventBuilder> next = new AtomicReference<>();
+        private final AtomicBoolean writing = new AtomicBoolean();
+        private volatile long writeStartedAt;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event, boolean replace) {
+            long startedAt = this.writeStartedAt;
+            if (startedAt != 0 && System.currentTimeMillis() - startedAt > properties.getStreamSendTimeoutMs()) {
+                drop();
+                return;
+            }
+
+            if (replace) {
+                this.next.set(event);
+            } else {
+                this.next.compareAndSet(null, event);
+            }
+            if (this.writing.compareAndSet(false, true)) {
+                writeExecutor.execute(this::write);
+            }
+        }
+
+        private void write() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while ((event = this.next.getAndSet(null)) != null) {
+                    this.writeStartedAt = System.currentTimeMillis();
+                    this.emitter.send(event);
+                    this.writeStartedAt = 0;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The page went away; the container completes the emitter
+                subscribers.remove(this.emitter);
+                return;
+            } finally {
+                this.writeStartedAt = 0;
+                this.writing.set(false);
+            }
+
+            // An event offered after the loop found none but before the flag was released
+            if (this.next.get() != null && this.writing.compareAndSet(false, true)) {
+                writeExecutor.execute(this::write);
+            }
+        }
+
+        private void drop() {
+            if (subscribers.remove(this.emitter) == null) {
+                return;
+            }
+            droppedCounter.increment();
+            log.debug("Closing health event stream stuck in a write for over {}ms",
+                    properties.getStreamSendTimeoutMs());
+            // complete() waits for the stuck write to give up, so not on the broadcasting thread
+            writeExecutor.execute(this.emitter::complete);
+        }
+    }
+}
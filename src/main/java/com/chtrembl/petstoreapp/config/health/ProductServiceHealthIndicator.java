@@ -1,86 +1,18 @@
 package com.chtrembl.petstoreapp.config.health;
 
-import com.chtrembl.petstoreapp.model.ContainerEnvironment;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
-import org.springframework.web.reactive.function.client.WebClientResponseException;
-
-import java.time.Duration;
 
 @Component("productService")
 @RequiredArgsConstructor
-@Slf4j
 class ProductServiceHealthIndicator implements HealthIndicator {
 
-    private final ContainerEnvironment containerEnvironment;
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final DownstreamHealthMonitor downstreamHealthMonitor;
 
     @Override
     public Health health() {
-        try {
-            String baseUrl = containerEnvironment.getPetStoreProductServiceURL();
-            if (baseUrl == null || baseUrl.isEmpty()) {
-                return Health.down()
-                        .withDetail("reason", "Product service URL not configured")
-                        .withDetail("url", "not set")
-                        .build();
-            }
-
-            // Call custom /health endpoint
-            String response = WebClient.builder()
-                    .baseUrl(baseUrl)
-                    .build()
-                    .get()
-                    .uri("/petstoreproductservice/v2/health")
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .timeout(Duration.ofSeconds(5))
-                    .block();
-
-            JsonNode healthData = objectMapper.readTree(response);
-            String status = healthData.get("status").asText();
-            String version = healthData.has("version") ? healthData.get("version").asText() : "unknown";
-            String date = healthData.has("date") ? healthData.get("date").asText() : "unknown";
-            String container = healthData.has("container") ? healthData.get("container").asText() : "unknown";
-
-            if ("UP".equalsIgnoreCase(status)) {
-                return Health.up()
-                        .withDetail("url", baseUrl)
-                        .withDetail("status", "Service responding")
-                        .withDetail("version", version)
-                        .withDetail("appDate", date)
-                        .withDetail("container", container)
-                        .build();
-            } else {
-                return Health.down()
-                        .withDetail("url", baseUrl)
-                        .withDetail("reason", "Service status: " + status)
-                        .withDetail("version", version)
-                        .withDetail("appDate", date)
-                        .withDetail("container", container)
-                        .build();
-            }
-
-        } catch (WebClientResponseException e) {
-            log.warn("Product service health check failed with HTTP {}: {}", e.getStatusCode(), e.getMessage());
-            return Health.down()
-                    .withDetail("url", containerEnvironment.getPetStoreProductServiceURL())
-                    .withDetail("error", "HTTP " + e.getStatusCode().value() + ": " + e.getStatusText())
-                    .withDetail("responseBody", e.getResponseBodyAsString())
-                    .build();
-        } catch (Exception e) {
-            log.warn("Product service health check failed: {}", e.getMessage());
-            return Health.down()
-                    .withDetail("url", containerEnvironment.getPetStoreProductServiceURL())
-                    .withDetail("error", e.getMessage())
-                    .withDetail("errorType", e.getClass().getSimpleName())
-                    .build();
-        }
+        return downstreamHealthMonitor.health("productService");
     }
-}
\ No newline at end of file
+}
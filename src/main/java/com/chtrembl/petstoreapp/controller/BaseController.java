@@ -1,6 +1,7 @@
 package com.chtrembl.petstoreapp.controller;
 
 import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Order;
 import com.chtrembl.petstoreapp.model.User;
 import com.chtrembl.petstoreapp.util.ExternalIdUtils;
 import com.microsoft.applicationinsights.telemetry.PageViewTelemetry;
@@ -173,6 +174,19 @@ public abstract class BaseController {
         model.addAttribute(MODEL_CURRENT_USERS_ON_SITE, nativeCache.asMap().size());
     }
 
+    /**
+     * Update the session cart count from the current order and expose it to the view.
+     */
+    protected int updateCartSize(Model model, Order order) {
+        int cartSize = 0;
+        if (order != null && order.getProducts() != null && !order.isComplete()) {
+            cartSize = order.getProducts().size();
+        }
+        sessionUser.setCartCount(cartSize);
+        model.addAttribute(MODEL_CART_SIZE, cartSize);
+        return cartSize;
+    }
+
     /**
      * Track page view for telemetry.
      */
@@ -116,20 +116,13 @@ public class PetController extends BaseController {
         trackPageView(request, "breeddetails");
 
         try {
-            if (sessionUser.getPets() == null) {
-                log.debug("Pets not loaded in session, loading for category: {}", category);
-                this.petStoreService.getPets(category);
-            }
-
-            if (sessionUser.getPets() == null || sessionUser.getPets().isEmpty()) {
-                throw new IllegalArgumentException("No pets available in session");
-            }
+            Pet pet = this.petStoreService.getPet(id);
 
-            if (id < 1 || id > sessionUser.getPets().size()) {
+            if (pet == null || pet.getCategory() == null || !category.equals(pet.getCategory().getName())) {
                 throw new IllegalArgumentException("Invalid pet ID: " + id);
             }
 
-            Pet pet = sessionUser.getPets().get(id - 1);
+            sessionUser.markPetSeen(id);
 
             log.debug("PetStoreApp /breeddetails requested for {}, routing to breeddetails view...",
                     pet.getName());
@@ -1,6 +1,7 @@
 package com.chtrembl.petstoreapp.controller;
 
 import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Order;
 import com.chtrembl.petstoreapp.model.Pet;
 import com.chtrembl.petstoreapp.model.User;
 import com.chtrembl.petstoreapp.service.PetStoreFacadeService;
@@ -15,6 +16,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 
 import java.net.URISyntaxException;
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Controller for product catalog management.
@@ -63,19 +65,29 @@ public class ProductController extends BaseController {
         trackPageView(request, "products");
 
         try {
-            // Ensure pets are loaded in session
-            if (sessionUser.getPets() == null || sessionUser.getPets().isEmpty()) {
-                log.warn("No pets available in session for products request");
+            // Products are only offered for pets this session has browsed
+            if (!sessionUser.hasSeenPet(id)) {
+                log.warn("Pet {} not seen in session for products request", id);
                 throw new IllegalStateException("Pet information not available. Please select a pet breed first.");
             }
 
-            // Validate pet ID
-            if (id < 1 || id > sessionUser.getPets().size()) {
+            // Independent downstream fetches run together: the pet, the product catalog and the cart badge order
+            CompletableFuture<Pet> petFuture = this.petStoreService.getPetAsync(id);
+            CompletableFuture<Void> catalogFuture = this.petStoreService.prefetchProductsAsync();
+            CompletableFuture<Order> orderFuture = this.petStoreService.retrieveOrderAsync(sessionUser.getSessionId())
+                    .exceptionally(e -> {
+                        log.debug("Could not refresh cart badge: {}", e.getMessage());
+                        return null;
+                    });
+
+            // Wait for all of them so no task outlives this request, then read the results
+            CompletableFuture.allOf(petFuture, catalogFuture, orderFuture).exceptionally(e -> null).join();
+
+            Pet pet = petFuture.join();
+            if (pet == null) {
                 throw new IllegalArgumentException("Invalid pet ID: " + id);
             }
 
-            Pet pet = sessionUser.getPets().get(id - 1);
-
             log.debug("PetStoreApp /products requested for category: {}, pet: {}", category, pet.getName());
 
             // Build product category search term
@@ -86,6 +98,11 @@ public class ProductController extends BaseController {
 
             model.addAttribute(MODEL_PRODUCTS, products);
 
+            Order order = orderFuture.join();
+            if (order != null) {
+                updateCartSize(model, order);
+            }
+
             log.info("Successfully loaded {} products for category: {}, pet: {}",
                     products != null ? products.size() : 0, category, pet.getName());
 
@@ -1,13 +1,16 @@
 package com.chtrembl.petstoreapp.controller;
 
+import com.chtrembl.petstoreapp.config.health.HealthEventBroadcaster;
 import com.chtrembl.petstoreapp.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 /**
  * Rest API controller for the PetStore application.
- * Provides endpoints for contact information and session introspection.
+ * Provides endpoints for contact information, session introspection and the service health stream.
  */
 
 @RestController
@@ -16,6 +19,9 @@ public class RestAPIController {
 	@Autowired
 	private User sessionUser;
 
+	@Autowired
+	private HealthEventBroadcaster healthEventBroadcaster;
+
 	@GetMapping("/api/contactus")
 	public String contactus() {
 		this.sessionUser.getTelemetryClient().trackEvent(
@@ -28,5 +34,9 @@ public class RestAPIController {
 	public String sessionid() {
 		return this.sessionUser.getSessionId();
 	}
-}
 
+	@GetMapping(value = "/api/health/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public SseEmitter healthStream() {
+		return this.healthEventBroadcaster.subscribe();
+	}
+}
@@ -25,7 +25,6 @@ import java.util.Map;
 @Slf4j
 public class ShoppingCartController extends BaseController {
 
-    private static final String MODEL_CART_SIZE = "cartSize";
     private static final String MODEL_EMAIL = "email";
     private static final String MODEL_ERROR = "error";
     private static final String MODEL_ORDER = "order";
@@ -62,12 +61,7 @@ public class ShoppingCartController extends BaseController {
             model.addAttribute(MODEL_ORDER, order);
 
             // Calculate and update cart size
-            int cartSize = 0;
-            if (order != null && order.getProducts() != null && !order.isComplete()) {
-                cartSize = order.getProducts().size();
-            }
-            sessionUser.setCartCount(cartSize);
-            model.addAttribute(MODEL_CART_SIZE, sessionUser.getCartCount());
+            int cartSize = updateCartSize(model, order);
 
             // Add user authentication status
             if (token != null) {
@@ -0,0 +1,11 @@
+package com.chtrembl.petstoreapp.exception;
+
+/**
+ * Base for failures raised by the app itself instead of calling a downstream target,
+ * so callers can treat every kind of fail-fast rejection alike.
+ */
+public abstract class CallRejectedException extends RuntimeException {
+    protected CallRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.chtrembl.petstoreapp.exception;
+
+/**
+ * Thrown without calling a downstream target when its adaptive concurrency limit is reached.
+ */
+public class ConcurrencyLimitExceededException extends CallRejectedException {
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
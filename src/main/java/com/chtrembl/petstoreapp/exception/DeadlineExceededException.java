@@ -0,0 +1,10 @@
+package com.chtrembl.petstoreapp.exception;
+
+/**
+ * Thrown without calling a downstream target when the current request's deadline has passed.
+ */
+public class DeadlineExceededException extends CallRejectedException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,95 @@
+package com.chtrembl.petstoreapp.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable, versioned pet catalog shared by all sessions. Pets are indexed by
+ * id and by category name when the catalog is loaded, so sessions only need to
+ * remember the catalog version and pet ids to resolve pets later. Pets reachable
+ * through neither index are not kept.
+ */
+public final class PetCatalog {
+
+	private static final PetCatalog EMPTY = new PetCatalog(0, 0, Map.of(), Map.of());
+
+	private final long version;
+	private final int size;
+	private final Map<Long, Pet> byId;
+	private final Map<String, List<Pet>> byCategory;
+
+	private PetCatalog(long version, int size, Map<Long, Pet> byId, Map<String, List<Pet>> byCategory) {
+		this.version = version;
+		this.size = size;
+		this.byId = byId;
+		this.byCategory = byCategory;
+	}
+
+	public static PetCatalog empty() {
+		return EMPTY;
+	}
+
+	public static PetCatalog of(long version, Collection<Pet> pets) {
+		Builder builder = new Builder();
+		pets.forEach(builder::add);
+		return builder.build(version);
+	}
+
+	public long getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Returns this catalog under another version, sharing its indexes.
+	 */
+	public PetCatalog withVersion(long version) {
+		return new PetCatalog(version, this.size, this.byId, this.byCategory);
+	}
+
+	public Pet findById(long id) {
+		return this.byId.get(id);
+	}
+
+	public List<Pet> findByCategory(String category) {
+		return this.byCategory.getOrDefault(category, List.of());
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Accumulates pets and freezes them into an immutable catalog.
+	 */
+	public static final class Builder {
+		private int size;
+		private final Map<Long, Pet> byId = new HashMap<>();
+		private final Map<String, List<Pet>> byCategory = new HashMap<>();
+
+		public Builder add(Pet pet) {
+			boolean indexed = false;
+
+			if (pet.getId() != null) {
+				this.byId.put(pet.getId(), pet);
+				indexed = true;
+			}
+			if (pet.getCategory() != null && pet.getCategory().getName() != null) {
+				this.byCategory.computeIfAbsent(pet.getCategory().getName(), k -> new ArrayList<>()).add(pet);
+				indexed = true;
+			}
+			if (indexed) {
+				this.size++;
+			}
+			return this;
+		}
+
+		public PetCatalog build(long version) {
+			Map<String, List<Pet>> frozenByCategory = new HashMap<>();
+			this.byCategory.forEach((category, categoryPets) -> frozenByCategory.put(category, List.copyOf(categoryPets)));
+			return new PetCatalog(version, this.size, Map.copyOf(this.byId), Map.copyOf(frozenByCategory));
+		}
+	}
+}
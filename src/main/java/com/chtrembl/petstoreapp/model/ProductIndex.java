@@ -0,0 +1,86 @@
+package com.chtrembl.petstoreapp.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index over a product catalog, keyed by category name and tag name.
+ * Built once per catalog load so lookups are two hash probes returning a
+ * pre-filtered list. Products without a category or tags cannot be found and
+ * are not kept.
+ */
+public final class ProductIndex {
+
+	private static final ProductIndex EMPTY = new ProductIndex(0, Map.of());
+
+	private final int size;
+	private final Map<String, Map<String, List<Product>>> byCategoryAndTag;
+
+	private ProductIndex(int size, Map<String, Map<String, List<Product>>> byCategoryAndTag) {
+		this.size = size;
+		this.byCategoryAndTag = byCategoryAndTag;
+	}
+
+	public static ProductIndex empty() {
+		return EMPTY;
+	}
+
+	public static ProductIndex of(Collection<Product> products) {
+		Builder builder = new Builder();
+		products.forEach(builder::add);
+		return builder.build();
+	}
+
+	/**
+	 * Returns the products of the given category carrying a tag with the given name.
+	 */
+	public List<Product> find(String category, String tagName) {
+		Map<String, List<Product>> byTag = this.byCategoryAndTag.get(category);
+		if (byTag == null) {
+			return List.of();
+		}
+		return byTag.getOrDefault(tagName, List.of());
+	}
+
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Accumulates products and freezes them into an immutable index.
+	 */
+	public static final class Builder {
+		private int size;
+		private final Map<String, Map<String, List<Product>>> byCategoryAndTag = new HashMap<>();
+
+		public Builder add(Product product) {
+			if (product.getCategory() == null || product.getCategory().getName() == null
+					|| product.getTags() == null) {
+				return this;
+			}
+
+			Map<String, List<Product>> byTag = this.byCategoryAndTag
+					.computeIfAbsent(product.getCategory().getName(), k -> new HashMap<>());
+			for (Tag tag : product.getTags()) {
+				if (tag != null && tag.getName() != null) {
+					byTag.computeIfAbsent(tag.getName(), k -> new ArrayList<>()).add(product);
+				}
+			}
+			this.size++;
+			return this;
+		}
+
+		public ProductIndex build() {
+			Map<String, Map<String, List<Product>>> frozen = new HashMap<>();
+			this.byCategoryAndTag.forEach((category, byTag) -> {
+				Map<String, List<Product>> frozenByTag = new HashMap<>();
+				byTag.forEach((tag, products) -> frozenByTag.put(tag, List.copyOf(products)));
+				frozen.put(category, Map.copyOf(frozenByTag));
+			});
+			return new ProductIndex(this.size, Map.copyOf(frozen));
+		}
+	}
+}
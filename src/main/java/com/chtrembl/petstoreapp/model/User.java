@@ -1,6 +1,7 @@
 package com.chtrembl.petstoreapp.model;
 
 import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,55 +9,144 @@ import org.springframework.context.annotation.Scope;
 import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Session based for each user, each user will also have a unique Telemetry
  * Client instance.
+ * <p>
+ * Concurrent requests of one session share this object. It holds no monitors, so a
+ * request running on a virtual thread never pins its carrier thread here.
  */
 @Component
 @Scope(value = "session", proxyMode = ScopedProxyMode.TARGET_CLASS)
 @Getter
 @Setter
 public class User {
-	private String name = "Guest";
-	private String sessionId;
+	/**
+	 * Upper bound on remembered pet ids, keeping session state a few hundred bytes.
+	 */
+	private static final int MAX_SEEN_PETS = 16;
+
+	private volatile String name = "Guest";
+	private volatile String sessionId;
 	private String email;
-	private List<Pet> pets;
-	private List<Product> products;
+	private long petCatalogVersion;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private final AtomicReference<long[]> seenPetIds = new AtomicReference<>(new long[0]);
 	private int cartCount;
 	private boolean initialTelemetryRecorded;
 
+	/**
+	 * Telemetry dimensions of this session, rebuilt only when the session id or name changes.
+	 */
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private transient volatile EventProperties eventProperties;
+
 	@Autowired(required = false)
 	private transient PetStoreTelemetryClient telemetryClient;
 
 	@Autowired
 	private ContainerEnvironment containerEnvironment;
 
-	public synchronized void setPets(List<Pet> pets) {
-		this.pets = pets;
+	/**
+	 * Remembers that this session has viewed the given pet, evicting the oldest id when full.
+	 */
+	public void markPetSeen(long petId) {
+		this.seenPetIds.updateAndGet(seen -> {
+			if (contains(seen, petId)) {
+				return seen;
+			}
+			int keep = Math.min(seen.length, MAX_SEEN_PETS - 1);
+			long[] updated = new long[keep + 1];
+			System.arraycopy(seen, seen.length - keep, updated, 0, keep);
+			updated[keep] = petId;
+			return updated;
+		});
+	}
+
+	public boolean hasSeenPet(long petId) {
+		return contains(this.seenPetIds.get(), petId);
 	}
 
-	public synchronized void setProducts(List<Product> products) {
-		this.products = products;
+	private static boolean contains(long[] seen, long petId) {
+		for (long seenPetId : seen) {
+			if (seenPetId == petId) {
+				return true;
+			}
+		}
+		return false;
 	}
 
-	public synchronized String getName() {
-		return this.name != null ? this.name : "Guest";
+	public String getName() {
+		String current = this.name;
+		return current != null ? current : "Guest";
 	}
 
-	public synchronized void setName(String name) {
+	public void setName(String name) {
 		this.name = name != null ? name : "Guest";
 	}
 
+	/**
+	 * Returns the session's telemetry dimensions as an immutable map shared by all events of the session.
+	 */
 	public Map<String, String> getCustomEventProperties() {
+		return currentEventProperties().custom();
+	}
+
+	/**
+	 * Returns the session's telemetry dimensions plus the user name and session id, as an immutable shared map.
+	 */
+	public Map<String, String> getUserEventProperties() {
+		return currentEventProperties().user();
+	}
+
+	/**
+	 * Returns the cached properties if they were built for the current session id and name, else rebuilds
+	 * them. A request racing a rename may store properties for the old name, but they are checked against
+	 * the name on every read, so the next read replaces them instead of serving them.
+	 */
+	private EventProperties currentEventProperties() {
+		String currentSessionId = this.sessionId;
+		String currentName = getName();
+		EventProperties properties = this.eventProperties;
+		if (properties != null && properties.isFor(currentSessionId, currentName)) {
+			return properties;
+		}
+		Map<String, String> custom = properties != null && Objects.equals(properties.sessionId(), currentSessionId)
+				? properties.custom()
+				: buildCustomEventProperties(currentSessionId);
+		Map<String, String> user = new HashMap<>(custom);
+		user.put("UserName", currentName);
+		user.put("SessionId", currentSessionId);
+		properties = new EventProperties(currentSessionId, currentName, custom, Collections.unmodifiableMap(user));
+		this.eventProperties = properties;
+		return properties;
+	}
+
+	private Map<String, String> buildCustomEventProperties(String sessionId) {
 		Map<String, String> properties = new HashMap<>();
-		properties.put("session_Id", this.sessionId);
+		properties.put("session_Id", sessionId);
 		properties.put("appDate", this.containerEnvironment.getAppDate());
 		properties.put("appVersion", this.containerEnvironment.getAppVersion());
 		properties.put("containerHostName", this.containerEnvironment.getContainerHostName());
-		return properties;
+		return Collections.unmodifiableMap(properties);
+	}
+
+	/**
+	 * Event properties together with the session id and name they were built for.
+	 */
+	private record EventProperties(String sessionId, String name, Map<String, String> custom,
+			Map<String, String> user) {
+
+		boolean isFor(String sessionId, String name) {
+			return Objects.equals(this.sessionId, sessionId) && Objects.equals(this.name, name);
+		}
 	}
 }
\ No newline at end of file
@@ -61,6 +61,7 @@ public class WebSecurityConfiguration {
                         .requestMatchers("/*product*").permitAll()
                         .requestMatchers("/*cart*").permitAll()
                         .requestMatchers("/api/contactus").permitAll()
+                        .requestMatchers("/api/health/stream").permitAll()
                         .requestMatchers("/login*").permitAll()
                         .requestMatchers("/content/**").permitAll()
                         .requestMatchers("/.well-known/**").permitAll()
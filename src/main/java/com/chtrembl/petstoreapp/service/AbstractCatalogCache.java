@@ -0,0 +1,210 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.config.CatalogCacheProperties;
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Base class for process-wide catalog caches shared by all sessions.
+ * Catalogs are keyed by status, expire after a fixed TTL and are refreshed
+ * ahead of expiry in the background so pages are served from memory.
+ * <p>
+ * When a load fails, the last good catalog is served marked as stale (up to a
+ * configurable maximum age) while a background task retries with exponential backoff.
+ * The stale catalog is put back in the cache, so reads during an outage are answered
+ * from memory instead of each waiting on a load against the failing service.
+ *
+ * @param <V> the in-memory representation of a loaded catalog
+ */
+@Slf4j
+public abstract class AbstractCatalogCache<V> implements DisposableBean {
+
+    private final String cacheName;
+    private final CatalogCacheProperties properties;
+    private final LoadingCache<String, CatalogSnapshot<V>> cache;
+    private final Map<String, CatalogSnapshot<V>> lastGood = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> retriesInFlight = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService retryExecutor;
+    private final Counter refreshCounter;
+    private final Counter staleServedCounter;
+    private final Counter retryCounter;
+
+    protected AbstractCatalogCache(String cacheName, MeterRegistry meterRegistry, CatalogCacheProperties properties) {
+        this.cacheName = cacheName;
+        this.properties = properties;
+        this.refreshCounter = Counter.builder("petstore.catalog.refreshes")
+                .description("Background refreshes of the shared catalog cache")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.staleServedCounter = Counter.builder("petstore.catalog.stale.served")
+                .description("Catalog reads answered with a stale snapshot after a failed load")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("petstore.catalog.stale.retries")
+                .description("Background reload attempts while serving a stale catalog")
+                .tag("cache", cacheName)
+                .register(meterRegistry);
+        meterRegistry.gauge("petstore.catalog.age.seconds",
+                Tags.of("cache", cacheName), this.lastGood,
+                snapshots -> snapshots.values().stream()
+                        .mapToLong(snapshot -> snapshot.age().toSeconds())
+                        .max()
+                        .orElse(0));
+
+        this.retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, cacheName + "-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getTtlSeconds(), TimeUnit.SECONDS)
+                .refreshAfterWrite(properties.getRefreshAfterSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build(new CatalogLoader());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, cacheName);
+        log.info("Catalog cache {} initialized [TTL: {}s, RefreshAfter: {}s, MaxStaleness: {}s]",
+                cacheName, properties.getTtlSeconds(), properties.getRefreshAfterSeconds(),
+                properties.getMaxStalenessSeconds());
+    }
+
+    /**
+     * Fetches the catalog for the given status from the downstream service.
+     */
+    protected abstract V loadCatalog(String status);
+
+    /**
+     * Returns the cached catalog for the given status, loading it on a miss. If the load
+     * fails and a sufficiently recent catalog is known, that catalog is returned marked as stale.
+     */
+    protected CatalogSnapshot<V> getCatalog(String status) {
+        try {
+            return countIfStale(this.cache.get(status));
+        } catch (RuntimeException e) {
+            CatalogSnapshot<V> stale = staleCatalog(status, e);
+            if (stale == null) {
+                throw e;
+            }
+            return stale;
+        }
+    }
+
+    /**
+     * Returns the cached catalog for the given status without loading it, or null on a miss.
+     * Lets callers that must not block fetch the catalog their own way and {@link #publish} it.
+     */
+    protected CatalogSnapshot<V> getCatalogIfPresent(String status) {
+        CatalogSnapshot<V> snapshot = this.cache.getIfPresent(status);
+        return snapshot != null ? countIfStale(snapshot) : null;
+    }
+
+    /**
+     * Stores a catalog fetched outside the cache's own loader, as if the cache had loaded it.
+     */
+    protected CatalogSnapshot<V> publish(String status, V catalog) {
+        CatalogSnapshot<V> snapshot = CatalogSnapshot.fresh(catalog);
+        this.lastGood.put(status, snapshot);
+        this.cache.put(status, snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Returns the last good catalog marked as stale after a failed load, caching it and scheduling
+     * a background reload, or null if there is none recent enough to serve.
+     */
+    protected CatalogSnapshot<V> staleCatalog(String status, Throwable failure) {
+        CatalogSnapshot<V> previous = this.lastGood.get(status);
+        if (previous == null || previous.age().toSeconds() > this.properties.getMaxStalenessSeconds()) {
+            return null;
+        }
+
+        this.staleServedCounter.increment();
+        log.warn("Serving stale catalog {} for status {} [Age: {}s] after load failure: {}",
+                cacheName, status, previous.age().toSeconds(), failure.getMessage());
+        CatalogSnapshot<V> stale = previous.asStale();
+        this.cache.put(status, stale);
+        scheduleRetry(status, this.properties.getRetryInitialBackoffMs());
+        return stale;
+    }
+
+    public void invalidate(String status) {
+        this.cache.invalidate(status);
+    }
+
+    @Override
+    public void destroy() {
+        this.retryExecutor.shutdownNow();
+    }
+
+    private CatalogSnapshot<V> load(String status) {
+        CatalogSnapshot<V> snapshot = CatalogSnapshot.fresh(loadCatalog(status));
+        this.lastGood.put(status, snapshot);
+        return snapshot;
+    }
+
+    private CatalogSnapshot<V> countIfStale(CatalogSnapshot<V> snapshot) {
+        if (snapshot.stale()) {
+            this.staleServedCounter.increment();
+        }
+        return snapshot;
+    }
+
+    private void scheduleRetry(String status, long delayMs) {
+        if (this.retriesInFlight.putIfAbsent(status, Boolean.TRUE) != null) {
+            return;
+        }
+        this.retryExecutor.schedule(() -> retry(status, delayMs), delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void retry(String status, long delayMs) {
+        this.retryCounter.increment();
+        try {
+            this.cache.put(status, load(status));
+            this.retriesInFlight.remove(status);
+            log.info("Background reload of catalog {} for status {} succeeded", cacheName, status);
+        } catch (RuntimeException e) {
+            CatalogSnapshot<V> previous = this.lastGood.get(status);
+            if (previous == null || previous.age().toSeconds() > this.properties.getMaxStalenessSeconds()) {
+                this.retriesInFlight.remove(status);
+                this.cache.asMap().computeIfPresent(status, (key, snapshot) -> snapshot.stale() ? null : snapshot);
+                log.warn("Giving up background reload of catalog {} for status {}: {}",
+                        cacheName, status, e.getMessage());
+                return;
+            }
+
+            long nextDelayMs = Math.min(delayMs * 2, this.properties.getRetryMaxBackoffMs());
+            log.debug("Background reload of catalog {} failed, retrying in {}ms: {}",
+                    cacheName, nextDelayMs, e.getMessage());
+            this.retryExecutor.schedule(() -> retry(status, nextDelayMs), nextDelayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private class CatalogLoader implements CacheLoader<String, CatalogSnapshot<V>> {
+
+        @Override
+        public CatalogSnapshot<V> load(String status) {
+            log.info("Loading catalog {} for status {}", cacheName, status);
+            return AbstractCatalogCache.this.load(status);
+        }
+
+        @Override
+        public CatalogSnapshot<V> reload(String status, CatalogSnapshot<V> oldValue) {
+            refreshCounter.increment();
+            log.debug("Refreshing catalog {} for status {} ahead of expiry", cacheName, status);
+            return AbstractCatalogCache.this.load(status);
+        }
+    }
+}
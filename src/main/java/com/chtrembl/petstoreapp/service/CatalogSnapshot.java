@@ -0,0 +1,26 @@
+package com.chtrembl.petstoreapp.service;
+
+import java.time.Duration;
+
+/**
+ * A loaded catalog together with the time it was fetched from the downstream service.
+ * Snapshots are marked stale when served after a failed reload.
+ *
+ * @param catalog  the catalog contents
+ * @param loadedAt epoch millis at which the catalog was fetched
+ * @param stale    whether this snapshot is being served in place of a failed reload
+ */
+public record CatalogSnapshot<V>(V catalog, long loadedAt, boolean stale) {
+
+    public static <V> CatalogSnapshot<V> fresh(V catalog) {
+        return new CatalogSnapshot<>(catalog, System.currentTimeMillis(), false);
+    }
+
+    public CatalogSnapshot<V> asStale() {
+        return new CatalogSnapshot<>(this.catalog, this.loadedAt, true);
+    }
+
+    public Duration age() {
+        return Duration.ofMillis(Math.max(0, System.currentTimeMillis() - this.loadedAt));
+    }
+}
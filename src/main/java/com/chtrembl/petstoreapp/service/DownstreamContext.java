@@ -0,0 +1,80 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.DeadlineExceededException;
+import com.chtrembl.petstoreapp.model.User;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import static com.chtrembl.petstoreapp.config.Constants.REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.SPAN_ID;
+import static com.chtrembl.petstoreapp.config.Constants.TRACE_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_CORRELATION_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_PARENT_SPAN_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_DEADLINE;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_SESSION_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_TRACE_ID;
+
+/**
+ * Request and session values a reactive downstream call needs, captured on the request
+ * thread when the call is assembled. Reactive pipelines continue on I/O threads, where
+ * the MDC, request attributes and session-scoped beans are not available.
+ *
+ * @param deadline epoch millis by which the page request must finish, or null without one
+ */
+record DownstreamContext(String requestId, String traceId, String spanId,
+                         String sessionId, String email, Long deadline) {
+
+    static DownstreamContext capture(User sessionUser) {
+        OptionalLong deadline = RequestDeadline.current();
+        return new DownstreamContext(
+                MDC.get(REQUEST_ID),
+                MDC.get(TRACE_ID),
+                MDC.get(SPAN_ID),
+                sessionUser.getSessionId(),
+                sessionUser.getEmail(),
+                deadline.isPresent() ? deadline.getAsLong() : null);
+    }
+
+    void applyTo(HttpHeaders headers) {
+        if (StringUtils.hasText(requestId)) {
+            headers.set(X_REQUEST_ID, requestId);
+            headers.set(X_CORRELATION_ID, requestId);
+        }
+        if (StringUtils.hasText(traceId)) {
+            headers.set(X_TRACE_ID, traceId);
+        }
+        if (StringUtils.hasText(spanId)) {
+            headers.set(X_PARENT_SPAN_ID, spanId);
+        }
+        if (StringUtils.hasText(sessionId)) {
+            headers.set(X_SESSION_ID, sessionId);
+        }
+        if (deadline != null) {
+            headers.set(X_REQUEST_DEADLINE, String.valueOf(deadline));
+        }
+    }
+
+    /**
+     * Bounds the call by the time left until the request deadline, failing at once if it has passed.
+     */
+    <T> Mono<T> withinDeadline(Mono<T> call, String description) {
+        if (deadline == null) {
+            return call;
+        }
+        return Mono.defer(() -> {
+            long remainingMs = deadline - System.currentTimeMillis();
+            if (remainingMs <= 0) {
+                return Mono.error(new DeadlineExceededException("Request deadline passed before calling " + description));
+            }
+            return call.timeout(Duration.ofMillis(remainingMs), Mono.error(
+                    () -> new DeadlineExceededException("Request deadline passed while calling " + description)));
+        });
+    }
+}
@@ -1,21 +1,36 @@
 package com.chtrembl.petstoreapp.service;
 
 import com.chtrembl.petstoreapp.client.OrderServiceClient;
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.CallRejectedException;
 import com.chtrembl.petstoreapp.exception.OrderServiceException;
 import com.chtrembl.petstoreapp.model.Order;
 import com.chtrembl.petstoreapp.model.Product;
 import com.chtrembl.petstoreapp.model.User;
-import com.fasterxml.jackson.annotation.JsonInclude;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.benmanes.caffeine.cache.Cache;
 import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.chtrembl.petstoreapp.config.Constants.COMPLETE_ORDER;
 import static com.chtrembl.petstoreapp.config.Constants.OPERATION;
@@ -28,8 +43,22 @@ import static com.chtrembl.petstoreapp.config.Constants.QUANTITY;
 @Slf4j
 public class OrderManagementService {
 
+    /**
+     * Quantity sent by the cart page to remove a product entirely.
+     */
+    private static final int REMOVE_QUANTITY = -999;
+
     private final User sessionUser;
     private final OrderServiceClient orderServiceClient;
+    private final Cache<String, Order> sessionOrderCache;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PendingCartUpdate> pendingCartUpdates = new ConcurrentHashMap<>();
+
+    @Value("${petstore.order.cart-update-window-ms:50}")
+    private long cartUpdateWindowMs;
+
+    @Value("${petstore.order.cart-update-timeout-ms:5000}")
+    private long cartUpdateTimeoutMs;
 
     public void updateOrder(long productId, int quantity, boolean completeOrder) {
         MDC.put(OPERATION, "updateOrder");
@@ -43,16 +72,27 @@ public class OrderManagementService {
                         this.sessionUser.getName()), this.sessionUser.getCustomEventProperties(), null);
 
         try {
-            Order updatedOrder = buildOrderUpdate(productId, quantity, completeOrder);
-            String orderJSON = serializeOrder(updatedOrder);
-
-            Order resultOrder = orderServiceClient.createOrUpdateOrder(orderJSON);
-            log.info("Successfully updated order: {}", resultOrder);
+            if (completeOrder) {
+                awaitPendingCartUpdate(this.sessionUser.getSessionId());
+                sendOrderUpdate(Map.of(), true);
+            } else if (this.cartUpdateWindowMs <= 0) {
+                sendOrderUpdate(Map.of(productId, quantity), false);
+            } else {
+                coalesceCartUpdate(productId, quantity);
+            }
 
         } catch (FeignException fe) {
             log.error("Unable to update order via Feign client: HTTP {} - {}", fe.status(), fe.getMessage(), fe);
             this.sessionUser.getTelemetryClient().trackException(fe);
             throw new OrderServiceException("Unable to update order via order service", fe);
+        } catch (CallNotPermittedException | BulkheadFullException | CallRejectedException e) {
+            log.warn("Order service is isolated, rejecting order update: {}", e.getMessage());
+            this.sessionUser.getTelemetryClient().trackException(e);
+            throw new OrderServiceException("The order service is temporarily unavailable", e);
+        } catch (TimeoutException e) {
+            log.warn("Timed out waiting for the coalesced cart update: {}", e.getMessage());
+            this.sessionUser.getTelemetryClient().trackException(e);
+            throw new OrderServiceException("The order update did not complete in time", e);
         } catch (Exception e) {
             log.error("Unexpected error updating order", e);
             this.sessionUser.getTelemetryClient().trackException(e);
@@ -72,8 +112,17 @@ public class OrderManagementService {
                         this.sessionUser.getName()), this.sessionUser.getCustomEventProperties(), null);
 
         try {
+            Order cachedOrder = this.sessionOrderCache.getIfPresent(orderId);
+            if (cachedOrder != null) {
+                log.debug("Serving order {} from session order cache", orderId);
+                return cachedOrder;
+            }
+
             Order order = orderServiceClient.getOrder(orderId);
             log.info("Successfully retrieved order: {}", order);
+            if (order != null) {
+                this.sessionOrderCache.put(orderId, order);
+            }
             return order;
 
         } catch (FeignException.NotFound e) {
@@ -83,6 +132,10 @@ public class OrderManagementService {
             log.error("Unable to retrieve order via Feign client: HTTP {} - {}", fe.status(), fe.getMessage(), fe);
             this.sessionUser.getTelemetryClient().trackException(fe);
             throw new OrderServiceException("Unable to retrieve order from order service", fe);
+        } catch (CallNotPermittedException | BulkheadFullException | CallRejectedException e) {
+            log.warn("Order service is isolated, cannot retrieve order {}: {}", orderId, e.getMessage());
+            this.sessionUser.getTelemetryClient().trackException(e);
+            throw new OrderServiceException("The order service is temporarily unavailable", e);
         } catch (Exception e) {
             log.error("Unexpected error retrieving order: {}", orderId, e);
             this.sessionUser.getTelemetryClient().trackException(e);
@@ -93,7 +146,84 @@ public class OrderManagementService {
         }
     }
 
-    private Order buildOrderUpdate(long productId, int quantity, boolean completeOrder) {
+    /**
+     * Merges this cart delta with others from the same session arriving within the update window.
+     * The first request of a window sends the merged update; later ones wait for and share its outcome.
+     */
+    private void coalesceCartUpdate(long productId, int quantity) throws Exception {
+        String sessionId = this.sessionUser.getSessionId();
+        PendingCartUpdate[] created = new PendingCartUpdate[1];
+        PendingCartUpdate batch = this.pendingCartUpdates.compute(sessionId, (id, pending) -> {
+            if (pending != null && pending.offer(productId, quantity)) {
+                return pending;
+            }
+            created[0] = new PendingCartUpdate(productId, quantity, pending);
+            return created[0];
+        });
+
+        if (created[0] == null) {
+            this.meterRegistry.counter("petstore.order.cart.updates.coalesced").increment();
+            log.debug("Coalesced update of product {} into pending cart update for session {}", productId, sessionId);
+            batch.await(cartUpdateWaitMs());
+            return;
+        }
+
+        try {
+            Thread.sleep(this.cartUpdateWindowMs);
+            batch.awaitPrevious(cartUpdateWaitMs());
+
+            Map<Long, Integer> deltas = batch.seal();
+            this.pendingCartUpdates.remove(sessionId, batch);
+
+            Order resultOrder = deltas.isEmpty()
+                    ? this.sessionOrderCache.getIfPresent(sessionId)
+                    : sendOrderUpdate(deltas, false);
+            batch.complete(resultOrder);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.fail(e);
+            throw e;
+        } catch (Throwable t) {
+            // Errors too, or the requests waiting on this batch would never be released
+            batch.fail(t);
+            throw t;
+        } finally {
+            this.pendingCartUpdates.remove(sessionId, batch);
+        }
+    }
+
+    private void awaitPendingCartUpdate(String sessionId) {
+        PendingCartUpdate pending = this.pendingCartUpdates.get(sessionId);
+        if (pending != null) {
+            pending.awaitQuietly(cartUpdateWaitMs());
+        }
+    }
+
+    /**
+     * How long to wait for a pending cart update: its window plus the order call's timeout,
+     * cut short by the request deadline.
+     */
+    private long cartUpdateWaitMs() {
+        long boundMs = this.cartUpdateWindowMs + this.cartUpdateTimeoutMs;
+        return Math.max(0, Math.min(boundMs, RequestDeadline.remainingMs()));
+    }
+
+    private Order sendOrderUpdate(Map<Long, Integer> deltas, boolean completeOrder) throws Exception {
+        Order updatedOrder = buildOrderUpdate(deltas, completeOrder);
+
+        Order resultOrder = orderServiceClient.createOrUpdateOrder(updatedOrder);
+        log.info("Successfully updated order: {}", resultOrder);
+
+        // Write-through: the response is the current order, so the cart redirect can render from it
+        if (completeOrder || resultOrder == null) {
+            this.sessionOrderCache.invalidate(updatedOrder.getId());
+        } else {
+            this.sessionOrderCache.put(updatedOrder.getId(), resultOrder);
+        }
+        return resultOrder;
+    }
+
+    private Order buildOrderUpdate(Map<Long, Integer> deltas, boolean completeOrder) {
         Order updatedOrder = new Order();
         updatedOrder.setId(this.sessionUser.getSessionId());
 
@@ -110,29 +240,133 @@ public class OrderManagementService {
             log.info("Completing order for session: {}", this.sessionUser.getSessionId());
         } else {
             List<Product> products = new ArrayList<>();
-            Product product = new Product();
-            product.setId(productId);
-            product.setQuantity(quantity);
-            products.add(product);
+            deltas.forEach((productId, quantity) -> {
+                Product product = new Product();
+                product.setId(productId);
+                product.setQuantity(quantity);
+                products.add(product);
+                log.info("Adding/updating product {} with quantity {} to order", productId, quantity);
+            });
             updatedOrder.setProducts(products);
-            log.info("Adding/updating product {} with quantity {} to order", productId, quantity);
         }
 
         return updatedOrder;
     }
 
-    private String serializeOrder(Order order) throws Exception {
-        return new ObjectMapper()
-                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
-                .disable(SerializationFeature.FAIL_ON_EMPTY_BEANS)
-                .configure(SerializationFeature.FAIL_ON_SELF_REFERENCES, false)
-                .writeValueAsString(order);
-    }
-
     private void cleanupMDC() {
         MDC.remove(OPERATION);
         MDC.remove(PRODUCT_ID);
         MDC.remove(QUANTITY);
         MDC.remove(COMPLETE_ORDER);
     }
+
+    /**
+     * Cart deltas of one session collected during an update window. Removals are kept apart
+     * from the quantity deltas, so no sum of deltas can be mistaken for a removal.
+     */
+    private static final class PendingCartUpdate {
+
+        private final Map<Long, Integer> deltas = new LinkedHashMap<>();
+        private final Set<Long> removals = new LinkedHashSet<>();
+        private final PendingCartUpdate previous;
+        private final CompletableFuture<Order> result = new CompletableFuture<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private boolean sealed;
+
+        PendingCartUpdate(long productId, int quantity, PendingCartUpdate previous) {
+            if (quantity == REMOVE_QUANTITY) {
+                this.removals.add(productId);
+            } else {
+                this.deltas.put(productId, quantity);
+            }
+            this.previous = previous;
+        }
+
+        /**
+         * Merges a delta into this update unless it has already been sent. A removal cannot be
+         * followed by another delta for the same product, and deltas summing to the removal
+         * quantity would be sent as a removal, so both cases start a new update.
+         */
+        boolean offer(long productId, int quantity) {
+            this.lock.lock();
+            try {
+                if (this.sealed) {
+                    return false;
+                }
+                if (this.removals.contains(productId)) {
+                    return quantity == REMOVE_QUANTITY;
+                }
+                if (quantity == REMOVE_QUANTITY) {
+                    this.deltas.remove(productId);
+                    this.removals.add(productId);
+                    return true;
+                }
+
+                int merged = this.deltas.getOrDefault(productId, 0) + quantity;
+                if (merged == REMOVE_QUANTITY) {
+                    return false;
+                }
+                this.deltas.put(productId, merged);
+                return true;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        Map<Long, Integer> seal() {
+            this.lock.lock();
+            try {
+                this.sealed = true;
+                Map<Long, Integer> merged = new LinkedHashMap<>(this.deltas);
+                merged.values().removeIf(quantity -> quantity == 0);
+                this.removals.forEach(productId -> merged.put(productId, REMOVE_QUANTITY));
+                return merged;
+            } finally {
+                this.lock.unlock();
+            }
+        }
+
+        void awaitPrevious(long timeoutMs) {
+            if (this.previous != null) {
+                this.previous.awaitQuietly(timeoutMs);
+            }
+        }
+
+        void complete(Order order) {
+            this.result.complete(order);
+        }
+
+        void fail(Throwable t) {
+            this.result.completeExceptionally(t);
+        }
+
+        void await(long timeoutMs) throws Exception {
+            try {
+                this.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw e;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof Exception cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e;
+            }
+        }
+
+        void awaitQuietly(long timeoutMs) {
+            try {
+                this.result.get(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException | CancellationException e) {
+                log.debug("Previous cart update failed: {}", e.getMessage());
+            } catch (TimeoutException e) {
+                log.warn("Previous cart update still running after {}ms, not waiting any longer", timeoutMs);
+            }
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.client.PetServiceClient;
+import com.chtrembl.petstoreapp.config.CatalogCacheProperties;
+import com.chtrembl.petstoreapp.model.PetCatalog;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared pet catalog cache, keyed by pet status. Every load produces a new
+ * catalog version so sessions can tell which catalog they last browsed.
+ */
+@Component
+public class PetCatalogCache extends AbstractCatalogCache<PetCatalog> {
+
+    private final PetServiceClient petServiceClient;
+    private final AtomicLong versions = new AtomicLong();
+
+    public PetCatalogCache(PetServiceClient petServiceClient,
+                           MeterRegistry meterRegistry,
+                           CatalogCacheProperties properties) {
+        super("petCatalog", meterRegistry, properties);
+        this.petServiceClient = petServiceClient;
+    }
+
+    public CatalogSnapshot<PetCatalog> getPetCatalog(String status) {
+        return getCatalog(status);
+    }
+
+    public CatalogSnapshot<PetCatalog> getPetCatalogIfPresent(String status) {
+        return getCatalogIfPresent(status);
+    }
+
+    /**
+     * Stores a catalog fetched without the cache, under the next catalog version.
+     */
+    public CatalogSnapshot<PetCatalog> publishPetCatalog(String status, PetCatalog catalog) {
+        return publish(status, catalog.withVersion(versions.incrementAndGet()));
+    }
+
+    public CatalogSnapshot<PetCatalog> getStalePetCatalog(String status, Throwable failure) {
+        return staleCatalog(status, failure);
+    }
+
+    @Override
+    protected PetCatalog loadCatalog(String status) {
+        PetCatalog catalog = petServiceClient.getPetsByStatus(status);
+        return catalog != null ? catalog.withVersion(versions.incrementAndGet()) : PetCatalog.empty();
+    }
+}
@@ -1,12 +1,15 @@
 package com.chtrembl.petstoreapp.service;
 
-import com.chtrembl.petstoreapp.client.PetServiceClient;
+import com.chtrembl.petstoreapp.exception.CallRejectedException;
 import com.chtrembl.petstoreapp.exception.PetServiceException;
 import com.chtrembl.petstoreapp.model.Category;
 import com.chtrembl.petstoreapp.model.ContainerEnvironment;
 import com.chtrembl.petstoreapp.model.Pet;
+import com.chtrembl.petstoreapp.model.PetCatalog;
 import com.chtrembl.petstoreapp.model.User;
 import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
@@ -16,6 +19,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
+import static com.chtrembl.petstoreapp.config.Constants.CATALOG_AGE;
 import static com.chtrembl.petstoreapp.config.Constants.CATEGORY;
 import static com.chtrembl.petstoreapp.config.Constants.OPERATION;
 import static com.chtrembl.petstoreapp.config.Constants.REQUEST_ID;
@@ -29,7 +33,7 @@ public class PetManagementService {
 
     private final User sessionUser;
     private final ContainerEnvironment containerEnvironment;
-    private final PetServiceClient petServiceClient;
+    private final PetCatalogCache petCatalogCache;
 
     public Collection<Pet> getPetsByCategory(String category) {
         List<Pet> pets;
@@ -49,12 +53,10 @@ public class PetManagementService {
                             this.sessionUser.getName()),
                     this.sessionUser.getCustomEventProperties(), null);
 
-            pets = petServiceClient.getPetsByStatus(AVAILABLE.getValue());
-            this.sessionUser.setPets(pets);
+            PetCatalog catalog = currentCatalog(requestId, traceId);
+            this.sessionUser.setPetCatalogVersion(catalog.getVersion());
 
-            pets = pets.stream()
-                    .filter(pet -> category.equals(pet.getCategory().getName()))
-                    .toList();
+            pets = catalog.findByCategory(category);
 
             log.info("Successfully retrieved {} pets for category {} [RequestID: {}, TraceID: {}]",
                     pets.size(), category, requestId, traceId);
@@ -74,6 +76,12 @@ public class PetManagementService {
             );
             log.error("Failed to retrieve pets from PetStorePetService via Feign client", fe);
             throw new PetServiceException("Unable to retrieve pets from the PetStorePetService", fe);
+        } catch (CallNotPermittedException | BulkheadFullException | CallRejectedException e) {
+            // Fallback when no catalog could be loaded and the pet service is isolated
+            log.warn("PetStorePetService is isolated, showing no pets [RequestID: {}, TraceID: {}, Category: {}]: {}",
+                    requestId, traceId, category, e.getMessage());
+            this.sessionUser.getTelemetryClient().trackException(e);
+            return List.of();
         } catch (Exception e) {
             log.error("Unexpected error when retrieving pets [RequestID: {}, TraceID: {}, Category: {}]",
                     requestId, traceId, category, e);
@@ -84,6 +92,48 @@ public class PetManagementService {
         }
     }
 
+    /**
+     * Resolves a single pet by id from the shared catalog, or returns null if it is unknown.
+     */
+    public Pet getPet(long petId) {
+        MDC.put(OPERATION, "getPet");
+
+        String requestId = MDC.get(REQUEST_ID);
+        String traceId = MDC.get(TRACE_ID);
+
+        try {
+            PetCatalog catalog = currentCatalog(requestId, traceId);
+            if (catalog.getVersion() != this.sessionUser.getPetCatalogVersion()) {
+                log.debug("Session browsed pet catalog version {}, resolving pet {} against version {}",
+                        this.sessionUser.getPetCatalogVersion(), petId, catalog.getVersion());
+            }
+            return catalog.findById(petId);
+        } catch (FeignException fe) {
+            log.error("Feign error retrieving pet {} [RequestID: {}, TraceID: {}, HTTP: {}, Message: {}]",
+                    petId, requestId, traceId, fe.status(), fe.getMessage(), fe);
+            this.sessionUser.getTelemetryClient().trackException(fe);
+            throw new PetServiceException("Unable to retrieve pets from the PetStorePetService", fe);
+        } catch (CallNotPermittedException | BulkheadFullException | CallRejectedException e) {
+            log.warn("PetStorePetService is isolated, cannot resolve pet {} [RequestID: {}, TraceID: {}]: {}",
+                    petId, requestId, traceId, e.getMessage());
+            throw new PetServiceException("The PetStorePetService is temporarily unavailable", e);
+        } finally {
+            MDC.remove(OPERATION);
+        }
+    }
+
+    private PetCatalog currentCatalog(String requestId, String traceId) {
+        CatalogSnapshot<PetCatalog> catalog = petCatalogCache.getPetCatalog(AVAILABLE.getValue());
+        if (catalog.stale()) {
+            long ageSeconds = catalog.age().toSeconds();
+            MDC.put(CATALOG_AGE, String.valueOf(ageSeconds));
+            log.warn("Serving stale pet catalog [RequestID: {}, TraceID: {}, Age: {}s]",
+                    requestId, traceId, ageSeconds);
+            this.sessionUser.getTelemetryClient().trackMetric("StalePetCatalogAgeSeconds", ageSeconds);
+        }
+        return catalog.catalog();
+    }
+
     private Collection<Pet> createErrorPetCollection(Exception e) {
         List<Pet> pets = new ArrayList<>();
         Pet errorPet = new Pet();
@@ -6,10 +6,13 @@ import com.chtrembl.petstoreapp.model.Product;
 import com.chtrembl.petstoreapp.model.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 @RequiredArgsConstructor
@@ -19,11 +22,16 @@ public class PetStoreFacadeService {
     private final PetManagementService petManagementService;
     private final ProductManagementService productManagementService;
     private final OrderManagementService orderManagementService;
+    private final ThreadPoolTaskExecutor petStoreFanOutExecutor;
 
     public Collection<Pet> getPets(String category) {
         return petManagementService.getPetsByCategory(category);
     }
 
+    public Pet getPet(long petId) {
+        return petManagementService.getPet(petId);
+    }
+
     public Collection<Product> getProducts(String category, List<Tag> tags) throws Exception {
         return productManagementService.getProductsByCategory(category, tags);
     }
@@ -35,4 +43,43 @@ public class PetStoreFacadeService {
     public Order retrieveOrder(String orderId) {
         return orderManagementService.retrieveOrder(orderId);
     }
-}
\ No newline at end of file
+
+    /*
+     * Asynchronous variants, so a page can start independent downstream fetches together
+     * and wait only for the slowest one. Request and session context travel with each task.
+     * When the fan-out executor is saturated, a task runs on the calling thread instead.
+     */
+
+    public CompletableFuture<Collection<Pet>> getPetsAsync(String category) {
+        return CompletableFuture.supplyAsync(() -> getPets(category), petStoreFanOutExecutor);
+    }
+
+    public CompletableFuture<Pet> getPetAsync(long petId) {
+        return CompletableFuture.supplyAsync(() -> getPet(petId), petStoreFanOutExecutor);
+    }
+
+    public CompletableFuture<Collection<Product>> getProductsAsync(String category, List<Tag> tags) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getProducts(category, tags);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, petStoreFanOutExecutor);
+    }
+
+    /**
+     * Loads the shared product catalog ahead of time; failures are left for the actual lookup to report.
+     */
+    public CompletableFuture<Void> prefetchProductsAsync() {
+        return CompletableFuture.runAsync(productManagementService::prefetchCatalog, petStoreFanOutExecutor)
+                .exceptionally(e -> {
+                    log.debug("Product catalog prefetch failed: {}", e.getMessage());
+                    return null;
+                });
+    }
+
+    public CompletableFuture<Order> retrieveOrderAsync(String orderId) {
+        return CompletableFuture.supplyAsync(() -> retrieveOrder(orderId), petStoreFanOutExecutor);
+    }
+}
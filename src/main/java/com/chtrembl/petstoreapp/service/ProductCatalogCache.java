@@ -0,0 +1,46 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.client.ProductServiceClient;
+import com.chtrembl.petstoreapp.config.CatalogCacheProperties;
+import com.chtrembl.petstoreapp.model.ProductIndex;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shared product catalog cache, keyed by product status. Each load is
+ * indexed by category and tag once so product pages are simple lookups.
+ */
+@Component
+public class ProductCatalogCache extends AbstractCatalogCache<ProductIndex> {
+
+    private final ProductServiceClient productServiceClient;
+
+    public ProductCatalogCache(ProductServiceClient productServiceClient,
+                               MeterRegistry meterRegistry,
+                               CatalogCacheProperties properties) {
+        super("productCatalog", meterRegistry, properties);
+        this.productServiceClient = productServiceClient;
+    }
+
+    public CatalogSnapshot<ProductIndex> getProductIndex(String status) {
+        return getCatalog(status);
+    }
+
+    public CatalogSnapshot<ProductIndex> getProductIndexIfPresent(String status) {
+        return getCatalogIfPresent(status);
+    }
+
+    public CatalogSnapshot<ProductIndex> publishProductIndex(String status, ProductIndex index) {
+        return publish(status, index);
+    }
+
+    public CatalogSnapshot<ProductIndex> getStaleProductIndex(String status, Throwable failure) {
+        return staleCatalog(status, failure);
+    }
+
+    @Override
+    protected ProductIndex loadCatalog(String status) {
+        ProductIndex index = productServiceClient.getProductsByStatus(status);
+        return index != null ? index : ProductIndex.empty();
+    }
+}
@@ -1,22 +1,25 @@
 package com.chtrembl.petstoreapp.service;
 
 import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
-import com.chtrembl.petstoreapp.client.ProductServiceClient;
+import com.chtrembl.petstoreapp.exception.CallRejectedException;
 import com.chtrembl.petstoreapp.exception.ProductServiceException;
 import com.chtrembl.petstoreapp.model.ContainerEnvironment;
 import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.ProductIndex;
 import com.chtrembl.petstoreapp.model.Tag;
 import com.chtrembl.petstoreapp.model.User;
 import feign.FeignException;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.List;
 
+import static com.chtrembl.petstoreapp.config.Constants.CATALOG_AGE;
 import static com.chtrembl.petstoreapp.config.Constants.CATEGORY;
 import static com.chtrembl.petstoreapp.config.Constants.OPERATION;
 import static com.chtrembl.petstoreapp.config.Constants.REQUEST_ID;
@@ -28,9 +31,12 @@ import static com.chtrembl.petstoreapp.model.Status.AVAILABLE;
 @Slf4j
 public class ProductManagementService {
 
+    private static final String LARGE_TAG = "large";
+    private static final String SMALL_TAG = "small";
+
     private final User sessionUser;
     private final ContainerEnvironment containerEnvironment;
-    private final ProductServiceClient productServiceClient;
+    private final ProductCatalogCache productCatalogCache;
 
     public Collection<Product> getProductsByCategory(String category, List<Tag> tags) throws Exception {
         List<Product> products;
@@ -46,31 +52,28 @@ public class ProductManagementService {
 
         try {
             // Custom event with user/session details
-            HashMap<String, String> eventProperties = new HashMap<>(this.sessionUser.getCustomEventProperties());
-            eventProperties.put("UserName", this.sessionUser.getName());
-            eventProperties.put("SessionId", this.sessionUser.getSessionId());
-
             this.sessionUser.getTelemetryClient().trackEvent(
                     "ProductsByCategoryRequest",
-                    eventProperties,
+                    this.sessionUser.getUserEventProperties(),
                     null
             );
 
-            products = productServiceClient.getProductsByStatus(AVAILABLE.getValue());
-            this.sessionUser.setProducts(products);
-
-            if (tags.stream().anyMatch(t -> t.getName().equals("large"))) {
-                products = products.stream()
-                        .filter(product -> category.equals(product.getCategory().getName())
-                                && product.getTags().toString().contains("large"))
-                        .toList();
-            } else {
-                products = products.stream()
-                        .filter(product -> category.equals(product.getCategory().getName())
-                                && product.getTags().toString().contains("small"))
-                        .toList();
+            CatalogSnapshot<ProductIndex> catalog = productCatalogCache.getProductIndex(AVAILABLE.getValue());
+            if (catalog.stale()) {
+                long ageSeconds = catalog.age().toSeconds();
+                MDC.put(CATALOG_AGE, String.valueOf(ageSeconds));
+                log.warn("Serving stale product catalog [RequestID: {}, TraceID: {}, Age: {}s]",
+                        requestId, traceId, ageSeconds);
+                this.sessionUser.getTelemetryClient().trackMetric("StaleProductCatalogAgeSeconds", ageSeconds);
             }
 
+            ProductIndex productIndex = catalog.catalog();
+
+            String sizeTag = tags != null && tags.stream().anyMatch(t -> LARGE_TAG.equals(t.getName()))
+                    ? LARGE_TAG
+                    : SMALL_TAG;
+            products = productIndex.find(category, sizeTag);
+
             int productCount = products.size();
 
             // Custom metric with dimensions
@@ -94,9 +97,22 @@ public class ProductManagementService {
             );
             log.error("Failed to retrieve products from ProductService via Feign client", fe);
             throw new ProductServiceException("Unable to retrieve products from product service", fe);
+        } catch (CallNotPermittedException | BulkheadFullException | CallRejectedException e) {
+            // Fallback when no catalog could be loaded and the product service is isolated
+            log.warn("ProductService is isolated, showing no products [RequestID: {}, TraceID: {}, Category: {}]: {}",
+                    requestId, traceId, category, e.getMessage());
+            this.sessionUser.getTelemetryClient().trackException(e);
+            return List.of();
         } finally {
             MDC.remove(OPERATION);
             MDC.remove(CATEGORY);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Makes sure the shared product catalog is loaded, without filtering or telemetry.
+     */
+    public void prefetchCatalog() {
+        productCatalogCache.getProductIndex(AVAILABLE.getValue());
+    }
+}
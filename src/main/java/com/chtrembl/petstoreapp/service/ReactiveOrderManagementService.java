@@ -0,0 +1,122 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.exception.OrderServiceException;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Order;
+import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.User;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link OrderManagementService}, sharing the session order cache.
+ * Cart updates are sent one by one; the coalescing window only applies to the blocking path.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveOrderManagementService {
+
+    private static final String ORDER_PATH = "/petstoreorderservice/v2/store/order";
+
+    private final User sessionUser;
+    private final ContainerEnvironment containerEnvironment;
+    private final Cache<String, Order> sessionOrderCache;
+    private final WebClient petStoreWebClient;
+    private final PetStoreTelemetryClient telemetryClient;
+    private final ObjectWriter orderWriter;
+
+    /**
+     * Retrieves an order, completing empty if the order service does not know it.
+     */
+    public Mono<Order> retrieveOrder(String orderId) {
+        Order cachedOrder = this.sessionOrderCache.getIfPresent(orderId);
+        if (cachedOrder != null) {
+            log.debug("Serving order {} from session order cache", orderId);
+            return Mono.just(cachedOrder);
+        }
+
+        DownstreamContext context = DownstreamContext.capture(this.sessionUser);
+        Mono<Order> fetch = this.petStoreWebClient.get()
+                .uri(this.containerEnvironment.getPetStoreOrderServiceURL() + ORDER_PATH + "/{orderId}", orderId)
+                .headers(context::applyTo)
+                .retrieve()
+                .bodyToMono(Order.class)
+                .onErrorResume(WebClientResponseException.NotFound.class, e -> Mono.empty());
+
+        return context.withinDeadline(fetch, "order-service getOrder")
+                .doOnNext(order -> this.sessionOrderCache.put(orderId, order))
+                .onErrorMap(e -> !(e instanceof OrderServiceException),
+                        e -> orderServiceFailure("Unable to retrieve order from order service", context, e));
+    }
+
+    public Mono<Order> updateOrder(long productId, int quantity, boolean completeOrder) {
+        DownstreamContext context = DownstreamContext.capture(this.sessionUser);
+        Order update = buildOrderUpdate(context, productId, quantity, completeOrder);
+
+        Mono<Order> send = Mono.fromCallable(() -> this.orderWriter.writeValueAsBytes(update))
+                .flatMap(orderBody -> this.petStoreWebClient.post()
+                        .uri(this.containerEnvironment.getPetStoreOrderServiceURL() + ORDER_PATH)
+                        .headers(context::applyTo)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(orderBody)
+                        .retrieve()
+                        .bodyToMono(Order.class));
+
+        return context.withinDeadline(send, "order-service createOrUpdateOrder")
+                .doOnNext(resultOrder -> log.info("Successfully updated order: {}", resultOrder))
+                // Write-through, as in the blocking path
+                .doOnSuccess(resultOrder -> {
+                    if (completeOrder || resultOrder == null) {
+                        this.sessionOrderCache.invalidate(update.getId());
+                    } else {
+                        this.sessionOrderCache.put(update.getId(), resultOrder);
+                    }
+                })
+                .onErrorMap(e -> orderServiceFailure("Unable to update order via order service", context, e));
+    }
+
+    private Order buildOrderUpdate(DownstreamContext context, long productId, int quantity, boolean completeOrder) {
+        Order updatedOrder = new Order();
+        updatedOrder.setId(context.sessionId());
+
+        if (context.email() != null && !context.email().trim().isEmpty()) {
+            updatedOrder.setEmail(context.email());
+        } else {
+            log.warn("User email is not available for session: {}", context.sessionId());
+        }
+
+        if (completeOrder) {
+            updatedOrder.setComplete(true);
+        } else {
+            Product product = new Product();
+            product.setId(productId);
+            product.setQuantity(quantity);
+            updatedOrder.setProducts(List.of(product));
+        }
+        return updatedOrder;
+    }
+
+    private OrderServiceException orderServiceFailure(String message, DownstreamContext context, Throwable e) {
+        if (e instanceof JsonProcessingException) {
+            log.error("Unable to serialize order [RequestID: {}]", context.requestId(), e);
+        } else {
+            log.error("{} [RequestID: {}, TraceID: {}]", message, context.requestId(), context.traceId(), e);
+        }
+        if (e instanceof Exception exception) {
+            this.telemetryClient.trackException(exception);
+        }
+        return new OrderServiceException(message, e);
+    }
+}
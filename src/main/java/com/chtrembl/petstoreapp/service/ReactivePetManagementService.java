@@ -0,0 +1,102 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.exception.PetServiceException;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Pet;
+import com.chtrembl.petstoreapp.model.PetCatalog;
+import com.chtrembl.petstoreapp.model.User;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.chtrembl.petstoreapp.model.Status.AVAILABLE;
+
+/**
+ * Non-blocking counterpart of {@link PetManagementService}. Serves from the same shared
+ * {@link PetCatalogCache}; on a miss the catalog is streamed from the pet service through
+ * the shared {@link WebClient} and published to the cache, with concurrent misses sharing
+ * one fetch. The shared fetch carries no caller's request headers or deadline; each caller
+ * bounds only its own wait by its deadline.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactivePetManagementService {
+
+    private static final String FIND_BY_STATUS = "/petstorepetservice/v2/pet/findByStatus?status={status}";
+
+    private final User sessionUser;
+    private final ContainerEnvironment containerEnvironment;
+    private final PetCatalogCache petCatalogCache;
+    private final WebClient petStoreWebClient;
+    private final PetStoreTelemetryClient telemetryClient;
+    private final Map<String, Mono<CatalogSnapshot<PetCatalog>>> catalogLoads = new ConcurrentHashMap<>();
+
+    public Flux<Pet> getPetsByCategory(String category) {
+        DownstreamContext context = DownstreamContext.capture(this.sessionUser);
+        return currentCatalog(context)
+                .flatMapIterable(catalog -> catalog.findByCategory(category))
+                .doOnComplete(() -> log.debug("Retrieved pets for category {} [RequestID: {}]",
+                        category, context.requestId()));
+    }
+
+    /**
+     * Resolves a single pet by id from the shared catalog, completing empty if it is unknown.
+     */
+    public Mono<Pet> getPet(long petId) {
+        DownstreamContext context = DownstreamContext.capture(this.sessionUser);
+        return currentCatalog(context)
+                .flatMap(catalog -> Mono.justOrEmpty(catalog.findById(petId)));
+    }
+
+    private Mono<PetCatalog> currentCatalog(DownstreamContext context) {
+        String status = AVAILABLE.getValue();
+        CatalogSnapshot<PetCatalog> cached = this.petCatalogCache.getPetCatalogIfPresent(status);
+        if (cached != null) {
+            return Mono.just(cached.catalog());
+        }
+
+        Mono<CatalogSnapshot<PetCatalog>> load = this.catalogLoads.computeIfAbsent(status, this::loadCatalog);
+        return context.withinDeadline(load, "pet-service findByStatus")
+                .map(snapshot -> {
+                    if (snapshot.stale()) {
+                        log.warn("Serving stale pet catalog [RequestID: {}, Age: {}s]",
+                                context.requestId(), snapshot.age().toSeconds());
+                    }
+                    return snapshot.catalog();
+                });
+    }
+
+    /**
+     * Fetches the catalog once for all callers waiting on it, bounded by the WebClient's response
+     * timeout. A caller giving up on its deadline does not cancel the fetch for the others.
+     */
+    private Mono<CatalogSnapshot<PetCatalog>> loadCatalog(String status) {
+        return this.petStoreWebClient.get()
+                .uri(this.containerEnvironment.getPetStorePetServiceURL() + FIND_BY_STATUS, status)
+                .retrieve()
+                .bodyToFlux(Pet.class)
+                .collect(PetCatalog.Builder::new, PetCatalog.Builder::add)
+                .map(builder -> this.petCatalogCache.publishPetCatalog(status, builder.build(0)))
+                .onErrorResume(e -> {
+                    CatalogSnapshot<PetCatalog> stale = this.petCatalogCache.getStalePetCatalog(status, e);
+                    if (stale != null) {
+                        return Mono.just(stale);
+                    }
+                    log.error("Unable to retrieve pets from PetStorePetService", e);
+                    if (e instanceof Exception exception) {
+                        this.telemetryClient.trackException(exception);
+                    }
+                    return Mono.error(new PetServiceException("Unable to retrieve pets from the PetStorePetService", e));
+                })
+                .doFinally(signal -> this.catalogLoads.remove(status))
+                .cache();
+    }
+}
@@ -0,0 +1,46 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.model.Order;
+import com.chtrembl.petstoreapp.model.Pet;
+import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Non-blocking variant of {@link PetStoreFacadeService}. Calls go through the shared, pooled
+ * WebClient, so waiting on a downstream service does not hold a thread. Request and session
+ * values are captured when a call is assembled, so call these methods on the request thread.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactivePetStoreFacadeService {
+
+    private final ReactivePetManagementService petManagementService;
+    private final ReactiveProductManagementService productManagementService;
+    private final ReactiveOrderManagementService orderManagementService;
+
+    public Flux<Pet> getPets(String category) {
+        return petManagementService.getPetsByCategory(category);
+    }
+
+    public Mono<Pet> getPet(long petId) {
+        return petManagementService.getPet(petId);
+    }
+
+    public Flux<Product> getProducts(String category, List<Tag> tags) {
+        return productManagementService.getProductsByCategory(category, tags);
+    }
+
+    public Mono<Order> updateOrder(long productId, int quantity, boolean completeOrder) {
+        return orderManagementService.updateOrder(productId, quantity, completeOrder);
+    }
+
+    public Mono<Order> retrieveOrder(String orderId) {
+        return orderManagementService.retrieveOrder(orderId);
+    }
+}
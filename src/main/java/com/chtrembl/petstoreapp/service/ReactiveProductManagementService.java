@@ -0,0 +1,97 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.exception.ProductServiceException;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.ProductIndex;
+import com.chtrembl.petstoreapp.model.Tag;
+import com.chtrembl.petstoreapp.model.User;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.chtrembl.petstoreapp.model.Status.AVAILABLE;
+
+/**
+ * Non-blocking counterpart of {@link ProductManagementService}, sharing its
+ * {@link ProductCatalogCache}. See {@link ReactivePetManagementService} for how misses are loaded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveProductManagementService {
+
+    private static final String FIND_BY_STATUS = "/petstoreproductservice/v2/product/findByStatus?status={status}";
+    private static final String LARGE_TAG = "large";
+    private static final String SMALL_TAG = "small";
+
+    private final User sessionUser;
+    private final ContainerEnvironment containerEnvironment;
+    private final ProductCatalogCache productCatalogCache;
+    private final WebClient petStoreWebClient;
+    private final PetStoreTelemetryClient telemetryClient;
+    private final Map<String, Mono<CatalogSnapshot<ProductIndex>>> catalogLoads = new ConcurrentHashMap<>();
+
+    public Flux<Product> getProductsByCategory(String category, List<Tag> tags) {
+        DownstreamContext context = DownstreamContext.capture(this.sessionUser);
+        String sizeTag = tags != null && tags.stream().anyMatch(t -> LARGE_TAG.equals(t.getName()))
+                ? LARGE_TAG
+                : SMALL_TAG;
+
+        return currentIndex(context)
+                .flatMapIterable(index -> index.find(category, sizeTag))
+                .doOnComplete(() -> log.debug("Retrieved products for category {} with tag {} [RequestID: {}]",
+                        category, sizeTag, context.requestId()));
+    }
+
+    private Mono<ProductIndex> currentIndex(DownstreamContext context) {
+        String status = AVAILABLE.getValue();
+        CatalogSnapshot<ProductIndex> cached = this.productCatalogCache.getProductIndexIfPresent(status);
+        if (cached != null) {
+            return Mono.just(cached.catalog());
+        }
+
+        Mono<CatalogSnapshot<ProductIndex>> load = this.catalogLoads.computeIfAbsent(status, this::loadIndex);
+        return context.withinDeadline(load, "product-service findByStatus")
+                .map(snapshot -> {
+                    if (snapshot.stale()) {
+                        log.warn("Serving stale product catalog [RequestID: {}, Age: {}s]",
+                                context.requestId(), snapshot.age().toSeconds());
+                    }
+                    return snapshot.catalog();
+                });
+    }
+
+    /**
+     * Fetches the index once for all callers waiting on it; see {@link ReactivePetManagementService}.
+     */
+    private Mono<CatalogSnapshot<ProductIndex>> loadIndex(String status) {
+        return this.petStoreWebClient.get()
+                .uri(this.containerEnvironment.getPetStoreProductServiceURL() + FIND_BY_STATUS, status)
+                .retrieve()
+                .bodyToFlux(Product.class)
+                .collect(ProductIndex.Builder::new, ProductIndex.Builder::add)
+                .map(builder -> this.productCatalogCache.publishProductIndex(status, builder.build()))
+                .onErrorResume(e -> {
+                    CatalogSnapshot<ProductIndex> stale = this.productCatalogCache.getStaleProductIndex(status, e);
+                    if (stale != null) {
+                        return Mono.just(stale);
+                    }
+                    log.error("Unable to retrieve products from PetStoreProductService", e);
+                    if (e instanceof Exception exception) {
+                        this.telemetryClient.trackException(exception);
+                    }
+                    return Mono.error(new ProductServiceException("Unable to retrieve products from product service", e));
+                })
+                .doFinally(signal -> this.catalogLoads.remove(status))
+                .cache();
+    }
+}
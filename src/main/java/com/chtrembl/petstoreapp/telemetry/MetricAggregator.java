@@ -0,0 +1,189 @@
+package com.chtrembl.petstoreapp.telemetry;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Pre-aggregates metric samples per name, and per name and properties for dimensioned
+ * metrics, between exports. Samples go into striped adders and accumulators, and known
+ * metrics are looked up with the caller's own properties map, so recording a value for a
+ * known metric allocates nothing and threads recording the same metric do not contend.
+ * Properties with a null key or value are dropped. Each {@link #flush} reports one count/sum/min/max summary per metric that had
+ * samples and starts a new interval. A summary carries the operation of the first sample
+ * of its interval, as an example request to correlate it with.
+ * <p>
+ * The summary fields are reset one after the other, so a sample recorded during a flush
+ * may have its parts reported in adjacent intervals.
+ */
+final class MetricAggregator {
+
+    private final int maxNames;
+    private final Map<String, Accumulator> byName = new ConcurrentHashMap<>();
+    private final Map<String, Map<Map<String, String>, Accumulator>> byDimensions = new ConcurrentHashMap<>();
+    private final AtomicInteger dimensioned = new AtomicInteger();
+
+    MetricAggregator(int maxNames) {
+        this.maxNames = Math.max(1, maxNames);
+    }
+
+    /**
+     * Adds a sample, or returns false if the sample was refused because too many distinct metrics are tracked.
+     */
+    boolean record(String name, double value, Supplier<TelemetryOperation> operation) {
+        return record(name, null, value, 1, value, value, operation);
+    }
+
+    /**
+     * Adds samples the caller has already aggregated: {@code sum} over {@code count} samples
+     * ranging from {@code min} to {@code max}, kept apart per distinct set of properties.
+     * Returns false if refused because too many distinct metrics are tracked.
+     */
+    boolean record(String name, Map<String, String> properties, double sum, long count, double min, double max,
+                   Supplier<TelemetryOperation> operation) {
+        Accumulator accumulator = properties == null || properties.isEmpty()
+                ? accumulator(name)
+                : accumulator(name, properties);
+        if (accumulator == null) {
+            return false;
+        }
+        accumulator.add(sum, count, min, max, operation);
+        return true;
+    }
+
+    private Accumulator accumulator(String name) {
+        Accumulator accumulator = this.byName.get(name);
+        if (accumulator == null) {
+            if (size() >= this.maxNames) {
+                return null;
+            }
+            accumulator = this.byName.computeIfAbsent(name, k -> new Accumulator());
+        }
+        return accumulator;
+    }
+
+    private Accumulator accumulator(String name, Map<String, String> properties) {
+        Map<Map<String, String>, Accumulator> accumulators = this.byDimensions.get(name);
+        Accumulator accumulator = accumulators != null ? accumulators.get(properties) : null;
+        if (accumulator != null) {
+            return accumulator;
+        }
+        Map<String, String> key = withoutNulls(properties);
+        if (key.isEmpty()) {
+            return accumulator(name);
+        }
+        if (size() >= this.maxNames) {
+            return null;
+        }
+        Accumulator[] added = new Accumulator[1];
+        // Under the name's lock, so a flush dropping the name's emptied map cannot lose the new metric
+        this.byDimensions.compute(name, (n, existing) -> {
+            Map<Map<String, String>, Accumulator> target = existing != null ? existing : new ConcurrentHashMap<>();
+            added[0] = target.computeIfAbsent(key, k -> {
+                this.dimensioned.incrementAndGet();
+                return new Accumulator();
+            });
+            return target;
+        });
+        return added[0];
+    }
+
+    private static Map<String, String> withoutNulls(Map<String, String> properties) {
+        Map<String, String> copy = new HashMap<>(properties.size());
+        properties.forEach((key, value) -> {
+            if (key != null && value != null) {
+                copy.put(key, value);
+            }
+        });
+        return Map.copyOf(copy);
+    }
+
+    /**
+     * Reports and resets the summary of every metric that had samples since the last flush.
+     * Metrics without samples are forgotten.
+     */
+    void flush(BiConsumer<MetricKey, Summary> exporter) {
+        this.byName.forEach((name, accumulator) ->
+                flush(this.byName, name, new MetricKey(name, Map.of()), accumulator, exporter));
+        this.byDimensions.forEach((name, accumulators) -> {
+            accumulators.forEach((properties, accumulator) -> {
+                if (flush(accumulators, properties, new MetricKey(name, properties), accumulator, exporter)) {
+                    this.dimensioned.decrementAndGet();
+                }
+            });
+            this.byDimensions.computeIfPresent(name, (n, existing) -> existing.isEmpty() ? null : existing);
+        });
+    }
+
+    /**
+     * Reports one metric, or forgets it if it had no samples, returning whether it was forgotten.
+     */
+    private static <K> boolean flush(Map<K, Accumulator> accumulators, K mapKey, MetricKey key,
+                                     Accumulator accumulator, BiConsumer<MetricKey, Summary> exporter) {
+        Summary summary = accumulator.summarizeAndReset();
+        if (summary != null) {
+            exporter.accept(key, summary);
+            return false;
+        }
+        if (accumulators.remove(mapKey, accumulator)) {
+            // A sample may have landed between the summary and the removal
+            Summary late = accumulator.summarizeAndReset();
+            if (late != null) {
+                exporter.accept(key, late);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    int size() {
+        return this.byName.size() + this.dimensioned.get();
+    }
+
+    record MetricKey(String name, Map<String, String> properties) {
+    }
+
+    record Summary(long count, double sum, double min, double max, TelemetryOperation operation) {
+    }
+
+    private static final class Accumulator {
+
+        private final LongAdder count = new LongAdder();
+        private final DoubleAdder sum = new DoubleAdder();
+        private final DoubleAccumulator min = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+        private final DoubleAccumulator max = new DoubleAccumulator(Math::max, Double.NEGATIVE_INFINITY);
+        private volatile TelemetryOperation operation;
+
+        void add(double sum, long count, double min, double max, Supplier<TelemetryOperation> operation) {
+            if (count <= 0) {
+                return;
+            }
+            if (this.operation == null) {
+                // Racing samples may overwrite each other here, any of them is a fine example
+                this.operation = operation.get();
+            }
+            this.sum.add(sum);
+            this.min.accumulate(min);
+            this.max.accumulate(max);
+            // Counted last, so a summary that sees the sample also sees its value
+            this.count.add(count);
+        }
+
+        Summary summarizeAndReset() {
+            long samples = this.count.sumThenReset();
+            if (samples == 0) {
+                return null;
+            }
+            TelemetryOperation example = this.operation;
+            this.operation = null;
+            return new Summary(samples, this.sum.sumThenReset(), this.min.getThenReset(), this.max.getThenReset(),
+                    example);
+        }
+    }
+}
@@ -1,181 +1,306 @@
 package com.chtrembl.petstoreapp.telemetry;
 
+import com.chtrembl.petstoreapp.config.TelemetryProperties;
 import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.extensibility.context.OperationContext;
 import com.microsoft.applicationinsights.telemetry.Duration;
+import com.microsoft.applicationinsights.telemetry.EventTelemetry;
+import com.microsoft.applicationinsights.telemetry.ExceptionTelemetry;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
 import com.microsoft.applicationinsights.telemetry.PageViewTelemetry;
+import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Custom TelemetryClient that sends data to Application Insights.
- * This version actually sends telemetry data instead of just logging.
+ * <p>
+ * Tracking calls only put the item into a bounded lock-free buffer; a background dispatcher
+ * drains it in batches into the Application Insights client. When the buffer is full the
+ * configured {@link TelemetryProperties.OverflowPolicy} decides which item is dropped, so a
+ * slow telemetry channel never holds up a request. The item is built on the dispatcher, but
+ * its timestamp and the request's trace and span ids are captured when it is tracked, so it
+ * is still correlated with the operation that produced it. Property and metric maps are
+ * handed over as they are and must not be changed by the caller afterwards.
+ * <p>
+ * Metrics skip the buffer: samples are combined per name and properties in a
+ * {@link MetricAggregator} and sent as one count/sum/min/max summary per metric and interval,
+ * correlated with the operation of one of its samples.
  */
 @Component
-public class PetStoreTelemetryClient {
+public class PetStoreTelemetryClient implements DisposableBean {
 
     private static final Logger logger = LoggerFactory.getLogger(PetStoreTelemetryClient.class);
     private static final Logger telemetryLogger = LoggerFactory.getLogger("ApplicationInsightsTelemetry");
 
     private final TelemetryClient telemetryClient;
-
-    public PetStoreTelemetryClient() {
+    private final TelemetryProperties properties;
+    private final TelemetryRingBuffer<TelemetryItem> buffer;
+    private final MetricAggregator metrics;
+    private final ScheduledExecutorService dispatcher;
+    private final Counter queuedCounter;
+    private final Counter droppedOverflowCounter;
+    private final Counter droppedFailedCounter;
+    private final Counter droppedMetricLimitCounter;
+    private final Counter sentCounter;
+
+    public PetStoreTelemetryClient(TelemetryProperties properties, MeterRegistry meterRegistry) {
         this.telemetryClient = new TelemetryClient();
+        this.properties = properties;
+        this.buffer = new TelemetryRingBuffer<>(properties.getBufferCapacity());
+        this.metrics = new MetricAggregator(properties.getMaxMetricNames());
+        this.queuedCounter = Counter.builder("petstore.telemetry.queued")
+                .description("Telemetry items buffered for Application Insights")
+                .register(meterRegistry);
+        this.droppedOverflowCounter = droppedCounter(meterRegistry, "overflow");
+        this.droppedFailedCounter = droppedCounter(meterRegistry, "send-failed");
+        this.droppedMetricLimitCounter = droppedCounter(meterRegistry, "metric-limit");
+        this.sentCounter = Counter.builder("petstore.telemetry.sent")
+                .description("Telemetry items handed to Application Insights")
+                .register(meterRegistry);
+        Gauge.builder("petstore.telemetry.buffer.size", this.buffer, TelemetryRingBuffer::size)
+                .description("Telemetry items waiting to be sent")
+                .register(meterRegistry);
+        Gauge.builder("petstore.telemetry.metrics.aggregated", this.metrics, MetricAggregator::size)
+                .description("Metric names currently being aggregated")
+                .register(meterRegistry);
+
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telemetry-dispatcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher.scheduleWithFixedDelay(this::drain, properties.getFlushIntervalMs(),
+                properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+        this.dispatcher.scheduleWithFixedDelay(this::exportMetrics, properties.getMetricIntervalMs(),
+                properties.getMetricIntervalMs(), TimeUnit.MILLISECONDS);
+        logger.info("Telemetry buffer initialized [Capacity: {}, BatchSize: {}, FlushInterval: {}ms, Overflow: {}]",
+                this.buffer.capacity(), properties.getBatchSize(), properties.getFlushIntervalMs(),
+                properties.getOverflowPolicy());
     }
 
-    public void track(Object telemetry) {
-        telemetryLogger.info("Custom telemetry tracked: {}", telemetry);
-        logger.debug("Telemetry object processed: {}", telemetry.getClass().getSimpleName());
+    private static Counter droppedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("petstore.telemetry.dropped")
+                .description("Telemetry items discarded instead of sent")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
 
+    public void track(Object telemetry) {
         if (telemetry instanceof String string) {
-            telemetryClient.trackTrace(string);
+            enqueue("Custom telemetry", () -> new TraceTelemetry(string));
         }
     }
 
     public void trackDependency(String dependencyName, String commandName, Object duration, boolean success) {
-        telemetryLogger.info("Dependency: {} - {} (Success: {})", dependencyName, commandName, success);
-        logger.debug("Dependency call tracked: {} -> {}", dependencyName, commandName);
-
         long durationMs = duration instanceof Long ? (Long) duration : 0L;
-        telemetryClient.trackDependency(dependencyName, commandName, new Duration(durationMs), success);
+        enqueue("Dependency " + dependencyName,
+                () -> new RemoteDependencyTelemetry(dependencyName, commandName, new Duration(durationMs), success));
     }
 
     public void trackEvent(String name, Map<String, String> properties, Map<String, Double> metrics) {
-        if (properties != null) {
-            properties.forEach(MDC::put);
-        }
-
-        telemetryLogger.info("Event: {} with properties: {} and metrics: {}", name, properties, metrics);
-        logger.info("Custom event tracked: {}", name);
-
-        telemetryClient.trackEvent(name, properties, metrics);
-
-        if (properties != null) {
-            properties.keySet().forEach(MDC::remove);
-        }
+        enqueue(name, () -> {
+            EventTelemetry telemetry = new EventTelemetry(name);
+            putAll(telemetry.getProperties(), properties);
+            putAll(telemetry.getMetrics(), metrics);
+            return telemetry;
+        });
     }
 
     public void trackEvent(String name) {
-        telemetryLogger.info("Event: {}", name);
-        logger.info("Simple event tracked: {}", name);
-
-        telemetryClient.trackEvent(name);
+        enqueue(name, () -> new EventTelemetry(name));
     }
 
     public void trackException(Exception exception, Map<String, String> properties, Map<String, Double> metrics) {
-        if (properties != null) {
-            properties.forEach(MDC::put);
-        }
-
-        telemetryLogger.error("Exception tracked with properties: {} and metrics: {}", properties, metrics, exception);
-        logger.error("Exception tracked: {}", exception.getMessage(), exception);
-
-        telemetryClient.trackException(exception, properties, metrics);
-
-        if (properties != null) {
-            properties.keySet().forEach(MDC::remove);
-        }
+        enqueue("Exception", () -> {
+            ExceptionTelemetry telemetry = new ExceptionTelemetry(exception);
+            putAll(telemetry.getProperties(), properties);
+            putAll(telemetry.getMetrics(), metrics);
+            return telemetry;
+        });
     }
 
     public void trackException(Exception exception) {
-        telemetryLogger.error("Exception tracked", exception);
-        logger.error("Simple exception tracked: {}", exception.getMessage(), exception);
-
-        telemetryClient.trackException(exception);
+        enqueue("Exception", () -> new ExceptionTelemetry(exception));
     }
 
     public void trackHttpRequest(String name, Date timestamp, long duration, String responseCode, boolean success) {
-        telemetryLogger.info("HTTP Request: {} - {} ms (Response: {}, Success: {})", name, duration, responseCode, success);
-        logger.debug("HTTP request logged: {} took {} ms", name, duration);
-
-        telemetryClient.trackHttpRequest(name, timestamp, duration, responseCode, success);
+        enqueue(name, () -> new RequestTelemetry(name, timestamp, duration, responseCode, success));
     }
 
+    /**
+     * Tracks samples the caller has already aggregated: {@code value} is their sum over
+     * {@code sampleCount} samples. They are combined with other samples of the same name and properties.
+     */
     public void trackMetric(String name, double value, int sampleCount, double min, double max, Map<String, String> properties) {
-        if (properties != null) {
-            properties.forEach(MDC::put);
-        }
-
-        telemetryLogger.info("Metric: {} = {} (samples: {}, min: {}, max: {}) with properties: {}",
-                name, value, sampleCount, min, max, properties);
-        logger.debug("Metric tracked: {} = {}", name, value);
-
-        telemetryClient.trackMetric(name, value);
-
-        if (properties != null) {
-            properties.keySet().forEach(MDC::remove);
+        if (!this.metrics.record(name, properties, value, sampleCount, min, max, TelemetryOperation::current)) {
+            this.droppedMetricLimitCounter.increment();
         }
     }
 
     public void trackMetric(String name, double value) {
-        telemetryLogger.info("Metric: {} = {}", name, value);
-        logger.debug("Simple metric tracked: {} = {}", name, value);
-
-        telemetryClient.trackMetric(name, value);
+        if (!this.metrics.record(name, value, TelemetryOperation::current)) {
+            this.droppedMetricLimitCounter.increment();
+        }
     }
 
     public void trackPageView(Object pageViewTelemetry) {
-        telemetryLogger.info("Page view tracked: {}", pageViewTelemetry);
-        logger.debug("Page view processed: {}", pageViewTelemetry);
-
         if (pageViewTelemetry instanceof PageViewTelemetry pageViewTel) {
-            telemetryClient.track(pageViewTel);
+            enqueue(pageViewTel.getName(), () -> pageViewTel);
         }
     }
 
     public void trackPageView(String name) {
-        telemetryLogger.info("Page view: {}", name);
-        logger.info("Page view tracked: {}", name);
-
-        telemetryClient.trackPageView(name);
+        enqueue(name, () -> new PageViewTelemetry(name));
     }
 
     public void trackTrace(String message, Object severityLevel, Map<String, String> properties) {
-        if (properties != null) {
-            properties.forEach(MDC::put);
-        }
+        SeverityLevel severity = severityLevel instanceof SeverityLevel level ? level : SeverityLevel.Information;
+        enqueue("Trace", () -> {
+            TraceTelemetry telemetry = new TraceTelemetry(message, severity);
+            putAll(telemetry.getProperties(), properties);
+            return telemetry;
+        });
+    }
+
+    public void trackTrace(String message, Object severityLevel) {
+        SeverityLevel severity = severityLevel instanceof SeverityLevel level ? level : SeverityLevel.Information;
+        enqueue("Trace", () -> new TraceTelemetry(message, severity));
+    }
 
-        telemetryLogger.info("Trace [{}]: {} with properties: {}", severityLevel, message, properties);
-        logger.debug("Trace logged with level: {}", severityLevel);
+    public void trackTrace(String message) {
+        enqueue("Trace", () -> new TraceTelemetry(message));
+    }
 
-        if (severityLevel instanceof SeverityLevel severity) {
-            telemetryClient.trackTrace(message, severity, properties);
-        } else {
-            telemetryClient.trackTrace(message, SeverityLevel.Information, properties);
+    /**
+     * Sends everything buffered so far and flushes the Application Insights channel, off the caller's thread.
+     */
+    public void flush() {
+        this.dispatcher.execute(() -> {
+            exportMetrics();
+            drain();
+            this.telemetryClient.flush();
+        });
+    }
+
+    private void enqueue(String name, Supplier<Telemetry> telemetry) {
+        TelemetryItem item = new TelemetryItem(name, telemetry, System.currentTimeMillis(), TelemetryOperation.current());
+        if (this.buffer.offer(item)) {
+            this.queuedCounter.increment();
+            return;
         }
 
-        if (properties != null) {
-            properties.keySet().forEach(MDC::remove);
+        if (this.properties.getOverflowPolicy() == TelemetryProperties.OverflowPolicy.DROP_OLDEST) {
+            if (this.buffer.poll() != null) {
+                this.droppedOverflowCounter.increment();
+            }
+            // Other producers may have taken the freed slot, in which case the new item is lost too
+            if (this.buffer.offer(item)) {
+                this.queuedCounter.increment();
+                return;
+            }
         }
+        this.droppedOverflowCounter.increment();
     }
 
-    public void trackTrace(String message, Object severityLevel) {
-        telemetryLogger.info("Trace [{}]: {}", severityLevel, message);
-        logger.debug("Simple trace: {}", message);
+    /**
+     * Hands every buffered item to Application Insights, in batches.
+     */
+    private void drain() {
+        int batchSize = Math.max(1, this.properties.getBatchSize());
+        int sent;
+        do {
+            sent = 0;
+            TelemetryItem item;
+            while (sent < batchSize && (item = this.buffer.poll()) != null) {
+                send(item);
+                sent++;
+            }
+        } while (sent == batchSize && !Thread.currentThread().isInterrupted());
+    }
 
-        if (severityLevel instanceof SeverityLevel severity) {
-            telemetryClient.trackTrace(message, severity);
-        } else {
-            telemetryClient.trackTrace(message, SeverityLevel.Information);
-        }
+    /**
+     * Sends one summary per metric name with samples in the interval that just ended.
+     */
+    private void exportMetrics() {
+        this.metrics.flush((key, summary) -> {
+            MetricTelemetry telemetry = new MetricTelemetry();
+            telemetry.setName(key.name());
+            telemetry.setValue(summary.sum());
+            telemetry.setCount((int) Math.min(Integer.MAX_VALUE, summary.count()));
+            telemetry.setMin(summary.min());
+            telemetry.setMax(summary.max());
+            putAll(telemetry.getProperties(), key.properties());
+            send(new TelemetryItem(key.name(), () -> telemetry, System.currentTimeMillis(), summary.operation()));
+        });
     }
 
-    public void trackTrace(String message) {
-        telemetryLogger.info("Trace: {}", message);
-        logger.info("Trace message: {}", message);
+    private void send(TelemetryItem item) {
+        try {
+            Telemetry telemetry = item.telemetry().get();
+            if (telemetry.getTimestamp() == null) {
+                telemetry.setTimestamp(new Date(item.timestamp()));
+            }
+            OperationContext operation = telemetry.getContext().getOperation();
+            if (item.operation() != null && operation.getId() == null) {
+                operation.setId(item.operation().id());
+                operation.setParentId(item.operation().parentId());
+            }
+            this.telemetryClient.track(telemetry);
+            this.sentCounter.increment();
+            telemetryLogger.debug("Telemetry sent: {}", item.name());
+        } catch (RuntimeException e) {
+            this.droppedFailedCounter.increment();
+            logger.warn("Unable to send telemetry {}: {}", item.name(), e.getMessage());
+        }
+    }
 
-        telemetryClient.trackTrace(message);
+    @Override
+    public void destroy() {
+        this.dispatcher.shutdown();
+        try {
+            this.dispatcher.awaitTermination(this.properties.getFlushIntervalMs() * 5, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        exportMetrics();
+        drain();
+        this.telemetryClient.flush();
     }
 
-    public void flush() {
-        telemetryLogger.info("Telemetry flush requested");
-        logger.debug("Telemetry flush operation called");
+    /**
+     * Copies the caller's values into the telemetry's concurrent map, which rejects null keys and values.
+     */
+    private static <V> void putAll(Map<String, V> target, Map<String, V> values) {
+        if (values != null) {
+            values.forEach((key, value) -> {
+                if (key != null && value != null) {
+                    target.put(key, value);
+                }
+            });
+        }
+    }
 
-        telemetryClient.flush();
+    /**
+     * A tracked item, with the time and operation it was tracked in.
+     */
+    private record TelemetryItem(String name, Supplier<Telemetry> telemetry, long timestamp,
+                                 TelemetryOperation operation) {
     }
 }
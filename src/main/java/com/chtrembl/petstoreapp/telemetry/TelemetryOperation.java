@@ -0,0 +1,21 @@
+package com.chtrembl.petstoreapp.telemetry;
+
+import org.slf4j.MDC;
+
+import static com.chtrembl.petstoreapp.config.Constants.SPAN_ID;
+import static com.chtrembl.petstoreapp.config.Constants.TRACE_ID;
+
+/**
+ * Trace and span id of the request a telemetry item was tracked in, captured on the request
+ * thread so the item can be correlated after it has been handed to the dispatcher.
+ */
+record TelemetryOperation(String id, String parentId) {
+
+    /**
+     * The current request's operation, or null outside a traced request.
+     */
+    static TelemetryOperation current() {
+        String traceId = MDC.get(TRACE_ID);
+        return traceId != null ? new TelemetryOperation(traceId, MDC.get(SPAN_ID)) : null;
+    }
+}
@@ -0,0 +1,84 @@
+package com.chtrembl.petstoreapp.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue over a fixed array (D. Vyukov's bounded MPMC queue). Every slot
+ * carries a sequence number telling producers and consumers whose turn it is, so
+ * {@link #offer} and {@link #poll} only contend on a single CAS and never block or allocate.
+ */
+final class TelemetryRingBuffer<T> {
+
+    private final int mask;
+    private final AtomicReferenceArray<T> items;
+    private final AtomicLongArray sequences;
+    private final AtomicLong enqueuePosition = new AtomicLong();
+    private final AtomicLong dequeuePosition = new AtomicLong();
+
+    TelemetryRingBuffer(int requestedCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, requestedCapacity) - 1) << 1;
+        this.mask = capacity - 1;
+        this.items = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds the item unless the buffer is full.
+     */
+    boolean offer(T item) {
+        long position = this.enqueuePosition.get();
+        while (true) {
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - position;
+            if (difference == 0) {
+                if (this.enqueuePosition.compareAndSet(position, position + 1)) {
+                    this.items.lazySet(index, item);
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+                position = this.enqueuePosition.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = this.enqueuePosition.get();
+            }
+        }
+    }
+
+    /**
+     * Removes the oldest item, or returns null if there is none.
+     */
+    T poll() {
+        long position = this.dequeuePosition.get();
+        while (true) {
+            int index = (int) (position & this.mask);
+            long difference = this.sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (this.dequeuePosition.compareAndSet(position, position + 1)) {
+                    T item = this.items.get(index);
+                    this.items.lazySet(index, null);
+                    this.sequences.set(index, position + this.mask + 1);
+                    return item;
+                }
+                position = this.dequeuePosition.get();
+            } else if (difference < 0) {
+                return null;
+            } else {
+                position = this.dequeuePosition.get();
+            }
+        }
+    }
+
+    int size() {
+        return (int) Math.max(0, this.enqueuePosition.get() - this.dequeuePosition.get());
+    }
+
+    int capacity() {
+        return this.mask + 1;
+    }
+}
@@ -1,6 +1,10 @@
 /**
  * Enhanced Health Monitor for Pet Store Application
  * Shows detailed service status information
+ *
+ * Subscribes to the server's health event stream, which pushes the pet, product and
+ * order service status on connect and on every change. Polls /actuator/health only
+ * when the browser has no EventSource or the stream is refused.
  */
 class HealthMonitor {
     constructor(options = {}) {
@@ -9,6 +13,7 @@ class HealthMonitor {
             retryDelay: options.retryDelay || 5000, // 5 seconds on error
             maxRetries: options.maxRetries || 3,
             timeout: options.timeout || 5000, // 5 second timeout
+            streamUrl: options.streamUrl || '/api/health/stream',
             ...options
         };
 
@@ -16,18 +21,27 @@ class HealthMonitor {
         this.retryCount = 0;
         this.lastStatus = null;
         this.intervalId = null;
+        this.eventSource = null;
+        this.streamFailed = !window.EventSource;
 
         this.init();
     }
 
     async init() {
         console.log('Health Monitor initialized');
-        await this.checkHealth();
+        if (this.streamFailed) {
+            await this.checkHealth();
+        }
         this.startMonitoring();
         this.addClickHandler();
     }
 
     startMonitoring() {
+        if (!this.streamFailed) {
+            this.subscribe();
+            return;
+        }
+
         this.intervalId = setInterval(() => {
             this.checkHealth();
         }, this.options.checkInterval);
@@ -35,6 +49,31 @@ class HealthMonitor {
         console.log(`Health monitoring started (interval: ${this.options.checkInterval}ms)`);
     }
 
+    subscribe() {
+        if (this.eventSource) return;
+
+        this.eventSource = new EventSource(this.options.streamUrl);
+        this.eventSource.addEventListener('health', event => {
+            this.retryCount = 0;
+            this.handleHealthResponse(JSON.parse(event.data));
+        });
+        this.eventSource.onerror = () => {
+            if (this.eventSource && this.eventSource.readyState === EventSource.CLOSED) {
+                // Refused (e.g. too many subscribers): the browser will not reconnect, so poll instead
+                console.warn('Health stream unavailable, falling back to polling');
+                this.eventSource = null;
+                this.streamFailed = true;
+                this.checkHealth();
+                this.startMonitoring();
+            } else {
+                // The browser reconnects on its own and receives the current state again
+                this.updateStatus('checking', 'Reconnecting...', 'fa-sync fa-spin');
+            }
+        };
+
+        console.log(`Health stream subscribed (${this.options.streamUrl})`);
+    }
+
     async checkHealth() {
         try {
             const controller = new AbortController();
@@ -222,6 +261,11 @@ class HealthMonitor {
 
     // Stop monitoring
     stop() {
+        if (this.eventSource) {
+            this.eventSource.close();
+            this.eventSource = null;
+            console.log('Health stream closed');
+        }
         if (this.intervalId) {
             clearInterval(this.intervalId);
             this.intervalId = null;
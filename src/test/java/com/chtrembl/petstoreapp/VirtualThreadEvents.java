@@ -0,0 +1,74 @@
+package com.chtrembl.petstoreapp;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs a task on many virtual threads at once under a JFR recording and collects the events in
+ * which a virtual thread kept its carrier thread: {@code jdk.VirtualThreadPinned} (parked inside
+ * a monitor) and {@code jdk.JavaMonitorEnter} (blocked entering a contended monitor).
+ * <p>
+ * The build runs tests with more carrier threads than a small runner has CPUs, so the virtual
+ * threads really contend even on a single core.
+ */
+public final class VirtualThreadEvents {
+
+    public static final String PINNED = "jdk.VirtualThreadPinned";
+    public static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+
+    private final List<RecordedEvent> events;
+
+    private VirtualThreadEvents(List<RecordedEvent> events) {
+        this.events = events;
+    }
+
+    /**
+     * Runs the task once on each of the given number of virtual threads, passing the thread's index.
+     */
+    public static VirtualThreadEvents record(Path recordingDir, int threads, IntConsumer task) throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable(PINNED).withThreshold(Duration.ZERO).withStackTrace();
+            recording.enable(MONITOR_ENTER).withThreshold(Duration.ZERO).withStackTrace();
+            recording.start();
+
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                List<Future<?>> tasks = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    int index = t;
+                    tasks.add(executor.submit(() -> task.accept(index)));
+                }
+                for (Future<?> submitted : tasks) {
+                    submitted.get();
+                }
+            }
+
+            recording.stop();
+            Path dump = Files.createTempFile(recordingDir, "virtual-threads", ".jfr");
+            recording.dump(dump);
+            return new VirtualThreadEvents(RecordingFile.readAllEvents(dump));
+        }
+    }
+
+    /**
+     * Returns the events of the given type raised while code of the given class was on the stack.
+     */
+    public List<RecordedEvent> of(String eventType, Class<?> type) {
+        String className = type.getName();
+        return this.events.stream()
+                .filter(event -> eventType.equals(event.getEventType().getName()))
+                .filter(event -> event.getStackTrace() != null && event.getStackTrace().getFrames().stream()
+                        .anyMatch(frame -> className.equals(frame.getMethod().getType().getName())))
+                .toList();
+    }
+}
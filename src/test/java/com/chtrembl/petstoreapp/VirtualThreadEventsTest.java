@@ -0,0 +1,62 @@
+package com.chtrembl.petstoreapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.chtrembl.petstoreapp.VirtualThreadEvents.PINNED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that {@link VirtualThreadEvents} sees pinning at all, so an empty result in the other
+ * tests means no pinning rather than a recording that missed it.
+ */
+class VirtualThreadEventsTest {
+
+    private static final int THREADS = 8;
+
+    @TempDir
+    Path recordingDir;
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_23) // From JDK 24 blocking inside synchronized no longer pins
+    void reportsVirtualThreadsSleepingInsideAMonitor() throws Exception {
+        Object monitor = new Object();
+
+        VirtualThreadEvents events = VirtualThreadEvents.record(this.recordingDir, THREADS, t -> {
+            synchronized (monitor) {
+                sleep();
+            }
+        });
+
+        assertThat(events.of(PINNED, VirtualThreadEventsTest.class)).as("pinned events").isNotEmpty();
+    }
+
+    @Test
+    void doesNotReportVirtualThreadsSleepingInsideALock() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+
+        VirtualThreadEvents events = VirtualThreadEvents.record(this.recordingDir, THREADS, t -> {
+            lock.lock();
+            try {
+                sleep();
+            } finally {
+                lock.unlock();
+            }
+        });
+
+        assertThat(events.of(PINNED, VirtualThreadEventsTest.class)).as("pinned events").isEmpty();
+    }
+
+    private static void sleep() {
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
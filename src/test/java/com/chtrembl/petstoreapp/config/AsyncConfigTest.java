@@ -0,0 +1,38 @@
+package com.chtrembl.petstoreapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncConfigTest {
+
+    @Test
+    void saturatedFanOutExecutorRunsTheCallOnTheCallerThread() throws Exception {
+        ThreadPoolTaskExecutor executor = new AsyncConfig().petStoreFanOutExecutor(1, 1, 0);
+        executor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            CompletableFuture<Void> busy = CompletableFuture.runAsync(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, executor);
+
+            CompletableFuture<Thread> rejected = CompletableFuture.supplyAsync(Thread::currentThread, executor);
+
+            assertThat(rejected.get(5, TimeUnit.SECONDS)).isSameAs(Thread.currentThread());
+            release.countDown();
+            busy.get(5, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
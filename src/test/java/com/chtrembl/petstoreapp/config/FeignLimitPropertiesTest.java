@@ -0,0 +1,31 @@
+package com.chtrembl.petstoreapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeignLimitPropertiesTest {
+
+    @Test
+    void clientEntryOverridesTheDefaultsFieldByField() {
+        FeignLimitProperties properties = new Binder(new MapConfigurationPropertySource(Map.of(
+                "petstore.feign.limit.defaults.enabled", "false",
+                "petstore.feign.limit.defaults.min-limit", "4",
+                "petstore.feign.limit.clients.order-service.max-limit", "30")))
+                .bind("petstore.feign.limit", Bindable.ofInstance(new FeignLimitProperties()))
+                .get();
+
+        FeignLimitProperties.Limit limit = properties.forClient("order-service");
+
+        assertThat(limit.getMaxLimit()).isEqualTo(30);
+        assertThat(limit.getEnabled()).isFalse();
+        assertThat(limit.getMinLimit()).isEqualTo(4);
+        assertThat(limit.getInitialLimit()).isEqualTo(10);
+        assertThat(limit.getBackoffRatio()).isEqualTo(0.9);
+    }
+}
@@ -0,0 +1,49 @@
+package com.chtrembl.petstoreapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FeignPoolPropertiesTest {
+
+    @Test
+    void clientEntryOverridesTheDefaultsFieldByField() {
+        FeignPoolProperties properties = bind(Map.of(
+                "petstore.feign.pool.defaults.lease-timeout-ms", "1500",
+                "petstore.feign.pool.defaults.keep-alive-seconds", "45",
+                "petstore.feign.pool.clients.order-service.max-connections-total", "30",
+                "petstore.feign.pool.clients.order-service.http2", "true"));
+
+        FeignPoolProperties.Pool pool = properties.forClient("order-service");
+
+        assertThat(pool.getMaxConnectionsTotal()).isEqualTo(30);
+        assertThat(pool.getHttp2()).isTrue();
+        assertThat(pool.getLeaseTimeoutMs()).isEqualTo(1500);
+        assertThat(pool.getKeepAliveSeconds()).isEqualTo(45);
+        assertThat(pool.getMaxConnectionsPerRoute()).isEqualTo(20);
+        assertThat(pool.getIdleEvictSeconds()).isEqualTo(60);
+    }
+
+    @Test
+    void clientWithoutEntryUsesTheDefaults() {
+        FeignPoolProperties properties = bind(Map.of(
+                "petstore.feign.pool.defaults.max-connections-total", "40"));
+
+        FeignPoolProperties.Pool pool = properties.forClient("pet-service");
+
+        assertThat(pool.getMaxConnectionsTotal()).isEqualTo(40);
+        assertThat(pool.getMaxConnectionsPerRoute()).isEqualTo(20);
+        assertThat(pool.getHttp2()).isFalse();
+    }
+
+    private static FeignPoolProperties bind(Map<String, String> source) {
+        return new Binder(new MapConfigurationPropertySource(source))
+                .bind("petstore.feign.pool", Bindable.ofInstance(new FeignPoolProperties()))
+                .get();
+    }
+}
@@ -0,0 +1,76 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.FeignLimitProperties;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.Target;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveLimitCapabilityTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @Test
+    void eachFailedAttemptIsADropAndTheRetrySucceedingIsNot() {
+        PetApi api = client(3, 2);
+
+        assertThat(api.pets()).isEqualTo("[]");
+
+        assertThat(this.attempts).hasValue(3);
+        assertThat(gauge("petstore.feign.limit")).isEqualTo(8); // 10 * 0.9 * 0.9
+        assertThat(gauge("petstore.feign.inflight")).isZero();
+    }
+
+    @Test
+    void callFailingAfterItsRetriesCountsOnlyItsAttempts() {
+        PetApi api = client(2, 2);
+
+        assertThatThrownBy(api::pets).isInstanceOf(RetryableException.class);
+
+        assertThat(this.attempts).hasValue(2);
+        assertThat(gauge("petstore.feign.limit")).isEqualTo(8);
+        assertThat(gauge("petstore.feign.inflight")).isZero();
+    }
+
+    private PetApi client(int maxAttempts, int failingAttempts) {
+        return Feign.builder()
+                .addCapability(new AdaptiveLimitCapability(new FeignLimitProperties(), this.meterRegistry))
+                .client((request, options) -> {
+                    if (this.attempts.incrementAndGet() <= failingAttempts) {
+                        throw new IOException("Connection reset");
+                    }
+                    return Response.builder()
+                            .status(200)
+                            .request(request)
+                            .headers(Map.of())
+                            .body("[]", StandardCharsets.UTF_8)
+                            .build();
+                })
+                .retryer(new Retryer.Default(1, 1, maxAttempts))
+                .target(new Target.HardCodedTarget<>(PetApi.class, "pet-service", "http://pet-service"));
+    }
+
+    private double gauge(String name) {
+        return this.meterRegistry.get(name).tag("client", "pet-service").gauge().value();
+    }
+
+    interface PetApi {
+
+        @RequestLine("GET /pets")
+        String pets();
+    }
+}
@@ -0,0 +1,186 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.FeignHedgeProperties;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Response;
+import feign.Retryer;
+import feign.Target;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.bind.annotation.GetMapping;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgingCapabilityTest {
+
+    private static final int LEARNING_CALLS = 1;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadPoolTaskExecutor hedgeExecutor = new ThreadPoolTaskExecutor();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final List<Thread> attemptThreads = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PetApi api;
+
+    @BeforeEach
+    void setUp() {
+        this.hedgeExecutor.setCorePoolSize(2);
+        this.hedgeExecutor.initialize();
+        FeignHedgeProperties properties = new FeignHedgeProperties();
+        properties.getDefaults().setMinSamples(LEARNING_CALLS);
+        properties.getDefaults().setMinDelayMs(20L);
+        this.api = api(properties);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.release.countDown();
+        this.hedgeExecutor.shutdown();
+    }
+
+    @Test
+    void primaryRunsOnTheCallerThreadAndOnlyTheHedgeIsSubmitted() {
+        learnLatency(this.api::pets);
+
+        assertThat(this.api.pets()).isEqualTo("[]");
+
+        assertThat(this.attemptThreads).hasSize(LEARNING_CALLS + 1).containsOnly(Thread.currentThread());
+        assertThat(counter("petstore.feign.hedge.sent")).isZero();
+    }
+
+    @Test
+    void slowPrimaryIsAnsweredByTheHedgeAndAborted() throws Exception {
+        learnLatency(this.api::slowThenFast);
+        Thread caller = Thread.currentThread();
+
+        assertThat(this.api.slowThenFast()).isEqualTo("hedge");
+
+        assertThat(this.attemptThreads.get(LEARNING_CALLS)).isSameAs(caller);
+        assertThat(this.attemptThreads.get(LEARNING_CALLS + 1)).isNotSameAs(caller);
+        assertThat(awaitCount(() -> counter("petstore.feign.hedge.wins"))).isEqualTo(1);
+        assertThat(awaitCount(() -> cancelledPrimaries().count())).isEqualTo(1);
+        assertThat(caller.isInterrupted()).isFalse();
+    }
+
+    @Test
+    void callerWaitsForTheHedgeWhenThePrimaryFailsAfterIt() throws Exception {
+        learnLatency(this.api::failAfterHedge);
+
+        assertThat(this.api.failAfterHedge()).isEqualTo("hedge");
+
+        assertThat(this.attempts).hasValue(LEARNING_CALLS + 2);
+        assertThat(awaitCount(() -> counter("petstore.feign.hedge.wins"))).isEqualTo(1);
+    }
+
+    private void learnLatency(Runnable call) {
+        for (int i = 0; i < LEARNING_CALLS; i++) {
+            call.run();
+        }
+    }
+
+    /**
+     * The hedge thread records its win once the caller may already have the answer, so wait for the count.
+     */
+    private double awaitCount(DoubleSupplier count) throws InterruptedException {
+        long giveUpAt = System.currentTimeMillis() + 5_000;
+        while (count.getAsDouble() < 1 && System.currentTimeMillis() < giveUpAt) {
+            Thread.sleep(5);
+        }
+        return count.getAsDouble();
+    }
+
+    private Timer cancelledPrimaries() {
+        return this.meterRegistry.get("petstore.feign.hedge.cancelled")
+                .tag("method", "PetApi#slowThenFast()").tag("attempt", "primary").timer();
+    }
+
+    private double counter(String name) {
+        return this.meterRegistry.get(name).tag("client", "pet-service").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    private PetApi api(FeignHedgeProperties properties) {
+        return Feign.builder()
+                .addCapability(new HedgingCapability(properties, this.hedgeExecutor, this.meterRegistry))
+                .client((request, options) -> {
+                    int attempt = this.attempts.incrementAndGet();
+                    this.attemptThreads.add(Thread.currentThread());
+                    boolean primary = attempt == LEARNING_CALLS + 1;
+                    boolean hedge = attempt > LEARNING_CALLS + 1;
+                    if (request.url().endsWith("/slow-then-fast") && primary) {
+                        awaitAbort();
+                    } else if (request.url().endsWith("/fail-after-hedge") && primary) {
+                        awaitHedge();
+                        throw new IOException("Connection reset");
+                    } else if (hedge) {
+                        this.release.countDown();
+                    }
+                    return Response.builder()
+                            .status(200)
+                            .request(request)
+                            .headers(Map.of())
+                            .body(hedge ? "hedge" : "[]", StandardCharsets.UTF_8)
+                            .build();
+                })
+                .retryer(Retryer.NEVER_RETRY)
+                .target(new Target.HardCodedTarget<>(PetApi.class, "pet-service", "http://pet-service"));
+    }
+
+    /**
+     * Blocks like a stalled read until the hedge wins and aborts the exchange, as the transport would.
+     */
+    private void awaitAbort() throws IOException {
+        Thread sender = Thread.currentThread();
+        HedgeAttempt.current().onAbort(sender::interrupt);
+        try {
+            Thread.sleep(5_000);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Aborted");
+        }
+    }
+
+    private void awaitHedge() throws IOException {
+        try {
+            this.release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            throw new InterruptedIOException("Aborted");
+        }
+    }
+
+    interface PetApi {
+
+        @Hedged
+        @GetMapping
+        @RequestLine("GET /pets")
+        String pets();
+
+        @Hedged
+        @GetMapping
+        @RequestLine("GET /slow-then-fast")
+        String slowThenFast();
+
+        @Hedged
+        @GetMapping
+        @RequestLine("GET /fail-after-hedge")
+        String failAfterHedge();
+    }
+}
@@ -0,0 +1,85 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.DeadlineExceededException;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Response;
+import feign.Retryer;
+import feign.Target;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LatencyCapabilityTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final PetApi api = Feign.builder()
+            .addCapability(new LatencyCapability(this.meterRegistry))
+            .addCapability(new DeadlineCapability(this.meterRegistry))
+            .client((request, options) -> {
+                if (this.attempts.incrementAndGet() == 1) {
+                    throw new IOException("Connection reset");
+                }
+                return Response.builder()
+                        .status(200)
+                        .request(request)
+                        .headers(Map.of())
+                        .body("[]", StandardCharsets.UTF_8)
+                        .build();
+            })
+            .retryer(new Retryer.Default(1, 1, 2))
+            .target(new Target.HardCodedTarget<>(PetApi.class, "pet-service", "http://pet-service"));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void timesTheCallOnceAndEachOfItsAttempts() {
+        assertThat(this.api.pets()).isEqualTo("[]");
+
+        assertThat(this.meterRegistry.get("petstore.feign.requests")
+                .tag("client", "pet-service").tag("outcome", "SUCCESS").tag("exception", "none")
+                .timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.get("petstore.feign.attempts").tag("outcome", "IO_ERROR").timer().count())
+                .isEqualTo(1);
+        assertThat(this.meterRegistry.get("petstore.feign.attempts").tag("outcome", "SUCCESS").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void timesCallsRejectedBeforeReachingTheTarget() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestDeadline.set(request, System.currentTimeMillis() - 1);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThatThrownBy(this.api::pets).isInstanceOf(DeadlineExceededException.class);
+
+        assertThat(this.meterRegistry.get("petstore.feign.requests")
+                .tag("outcome", "REJECTED").tag("exception", "DeadlineExceededException")
+                .timer().count()).isEqualTo(1);
+        assertThat(this.meterRegistry.find("petstore.feign.attempts").timers()).isEmpty();
+        assertThat(this.attempts).hasValue(0);
+    }
+
+    interface PetApi {
+
+        @RequestLine("GET /pets")
+        String pets();
+    }
+}
@@ -0,0 +1,88 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.VirtualThreadEvents;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static com.chtrembl.petstoreapp.VirtualThreadEvents.MONITOR_ENTER;
+import static com.chtrembl.petstoreapp.VirtualThreadEvents.PINNED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a {@link RequestBudget} shared by every Feign call from many virtual threads at once and
+ * checks that none of them holds its carrier thread, under a load that is shown to block the
+ * carriers of a monitor-based budget.
+ */
+class RequestBudgetPinningTest {
+
+    private static final int THREADS = 1_000;
+    private static final int ITERATIONS = 500;
+
+    @TempDir
+    Path recordingDir;
+
+    @Test
+    void loadContendsOnAMonitorBasedBudget() throws Exception {
+        SynchronizedBudget budget = new SynchronizedBudget(0.1, 10);
+
+        VirtualThreadEvents events = drive(() -> {
+            budget.onRequest();
+            budget.tryWithdraw();
+        });
+
+        assertThat(events.of(MONITOR_ENTER, SynchronizedBudget.class)).as("contended monitor enters").isNotEmpty();
+    }
+
+    @Test
+    void budgetDoesNotHoldCarrierThreadsUnderContention() throws Exception {
+        RequestBudget budget = new RequestBudget(0.1, 10);
+
+        VirtualThreadEvents events = drive(() -> {
+            budget.onRequest();
+            budget.tryWithdraw();
+        });
+
+        assertThat(events.of(PINNED, RequestBudget.class)).as("pinned events").isEmpty();
+        assertThat(events.of(MONITOR_ENTER, RequestBudget.class)).as("contended monitor enters").isEmpty();
+        assertThat(budget.getTokens()).isBetween(0.0, 10.0);
+    }
+
+    private VirtualThreadEvents drive(Runnable step) throws Exception {
+        return VirtualThreadEvents.record(this.recordingDir, THREADS, t -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                step.run();
+                Thread.yield();
+            }
+        });
+    }
+
+    /**
+     * The same token bucket guarded by its monitor, as the control for the load.
+     */
+    private static final class SynchronizedBudget {
+
+        private final double ratio;
+        private final double maxTokens;
+        private double tokens;
+
+        SynchronizedBudget(double ratio, double maxTokens) {
+            this.ratio = ratio;
+            this.maxTokens = maxTokens;
+            this.tokens = maxTokens;
+        }
+
+        synchronized void onRequest() {
+            this.tokens = Math.min(this.maxTokens, this.tokens + this.ratio);
+        }
+
+        synchronized boolean tryWithdraw() {
+            if (this.tokens < 1) {
+                return false;
+            }
+            this.tokens -= 1;
+            return true;
+        }
+    }
+}
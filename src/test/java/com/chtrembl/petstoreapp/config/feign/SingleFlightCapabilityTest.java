@@ -0,0 +1,126 @@
+package com.chtrembl.petstoreapp.config.feign;
+
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.DeadlineExceededException;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Response;
+import feign.Target;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightCapabilityTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final CountDownLatch firstCallStarted = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final PetApi api = Feign.builder()
+            .addCapability(new SingleFlightCapability(this.meterRegistry))
+            .client((request, options) -> {
+                this.attempts.incrementAndGet();
+                this.firstCallStarted.countDown();
+                try {
+                    this.release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Response.builder()
+                        .status(200)
+                        .request(request)
+                        .headers(Map.of())
+                        .body("[]", StandardCharsets.UTF_8)
+                        .build();
+            })
+            .target(new Target.HardCodedTarget<>(PetApi.class, "pet-service", "http://pet-service"));
+
+    @AfterEach
+    void tearDown() {
+        this.release.countDown();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void concurrentCallsToACoalescedMethodShareOneCall() throws Exception {
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(this.api::pets);
+        assertThat(this.firstCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(this.api::pets);
+        awaitCoalescedCall();
+
+        this.release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("[]");
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("[]");
+        assertThat(this.attempts).hasValue(1);
+    }
+
+    @Test
+    void callsToAMethodNotOptedInAreNotCoalesced() throws Exception {
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(this.api::health);
+        CompletableFuture<String> second = CompletableFuture.supplyAsync(this.api::health);
+        this.release.countDown();
+
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertThat(this.attempts).hasValue(2);
+        assertThat(coalescedCalls()).isZero();
+    }
+
+    @Test
+    void waitingCallerGivesUpAtItsOwnDeadline() throws Exception {
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(this.api::pets);
+        assertThat(this.firstCallStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestDeadline.set(request, System.currentTimeMillis() + 50);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        assertThatThrownBy(this.api::pets).isInstanceOf(DeadlineExceededException.class);
+
+        this.release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo("[]");
+        assertThat(this.attempts).hasValue(1);
+    }
+
+    private void awaitCoalescedCall() throws InterruptedException {
+        long giveUpAt = System.currentTimeMillis() + 5_000;
+        while (coalescedCalls() < 1 && System.currentTimeMillis() < giveUpAt) {
+            Thread.sleep(5);
+        }
+    }
+
+    private double coalescedCalls() {
+        return this.meterRegistry.find("petstore.feign.coalesced").counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+
+    interface PetApi {
+
+        @Coalesced
+        @GetMapping
+        @RequestLine("GET /pets")
+        String pets();
+
+        @GetMapping
+        @RequestLine("GET /health")
+        String health();
+    }
+}
@@ -0,0 +1,85 @@
+package com.chtrembl.petstoreapp.model;
+
+import com.chtrembl.petstoreapp.VirtualThreadEvents;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.function.IntConsumer;
+
+import static com.chtrembl.petstoreapp.VirtualThreadEvents.MONITOR_ENTER;
+import static com.chtrembl.petstoreapp.VirtualThreadEvents.PINNED;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives one session's {@link User} from many virtual threads at once, as concurrent requests of
+ * a session do, and checks that none of them holds its carrier thread, under a load that is shown
+ * to block the carriers of a user whose name is guarded by its monitor.
+ */
+class UserPinningTest {
+
+    private static final int THREADS = 1_000;
+    private static final int ITERATIONS = 500;
+
+    @TempDir
+    Path recordingDir;
+
+    @Test
+    void loadContendsOnAMonitorGuardedName() throws Exception {
+        SynchronizedName user = new SynchronizedName();
+
+        VirtualThreadEvents events = drive(i -> {
+            user.setName(i % 2 == 0 ? "alice" : "bob");
+            user.getName();
+        });
+
+        assertThat(events.of(MONITOR_ENTER, SynchronizedName.class)).as("contended monitor enters").isNotEmpty();
+    }
+
+    @Test
+    void userDoesNotHoldCarrierThreadsUnderContention() throws Exception {
+        ContainerEnvironment containerEnvironment = new ContainerEnvironment();
+        containerEnvironment.setAppDate("2025-01-01");
+        containerEnvironment.setAppVersion("1.0.0");
+        containerEnvironment.setContainerHostName("petstoreapp-0");
+        User user = new User();
+        user.setContainerEnvironment(containerEnvironment);
+        user.setSessionId("5F2B0C9A1E7D4A3B8C6D0E1F2A3B4C5D");
+
+        VirtualThreadEvents events = drive(i -> {
+            user.setName(i % 2 == 0 ? "alice" : "bob");
+            user.getName();
+            user.getUserEventProperties();
+            user.markPetSeen(i);
+            user.hasSeenPet(i);
+        });
+
+        assertThat(events.of(PINNED, User.class)).as("pinned events").isEmpty();
+        assertThat(events.of(MONITOR_ENTER, User.class)).as("contended monitor enters").isEmpty();
+    }
+
+    private VirtualThreadEvents drive(IntConsumer step) throws Exception {
+        return VirtualThreadEvents.record(this.recordingDir, THREADS, t -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                step.accept(t + i);
+                Thread.yield();
+            }
+        });
+    }
+
+    /**
+     * The session name guarded by its monitor, as the control for the load.
+     */
+    private static final class SynchronizedName {
+
+        private String name = "Guest";
+
+        synchronized String getName() {
+            return this.name;
+        }
+
+        synchronized void setName(String name) {
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.chtrembl.petstoreapp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserTest {
+
+    private final User user = user();
+
+    @Test
+    void userEventPropertiesFollowTheCurrentName() {
+        Map<String, String> guest = this.user.getUserEventProperties();
+
+        this.user.setName("alice");
+
+        assertThat(guest).containsEntry("UserName", "Guest");
+        assertThat(this.user.getUserEventProperties()).containsEntry("UserName", "alice");
+        assertThat(this.user.getUserEventProperties()).isSameAs(this.user.getUserEventProperties());
+    }
+
+    @Test
+    void renameKeepsTheSessionPropertiesAndNewSessionRebuildsThem() {
+        Map<String, String> custom = this.user.getCustomEventProperties();
+
+        this.user.setName("alice");
+        assertThat(this.user.getCustomEventProperties()).isSameAs(custom);
+
+        this.user.setSessionId("9A8B7C6D5E4F3A2B1C0D9E8F7A6B5C4D");
+        assertThat(this.user.getCustomEventProperties()).containsEntry("session_Id", "9A8B7C6D5E4F3A2B1C0D9E8F7A6B5C4D");
+        assertThat(this.user.getUserEventProperties())
+                .containsEntry("SessionId", "9A8B7C6D5E4F3A2B1C0D9E8F7A6B5C4D")
+                .containsEntry("UserName", "alice");
+    }
+
+    private static User user() {
+        ContainerEnvironment containerEnvironment = new ContainerEnvironment();
+        containerEnvironment.setAppDate("2025-01-01");
+        containerEnvironment.setAppVersion("1.0.0");
+        containerEnvironment.setContainerHostName("petstoreapp-0");
+        User user = new User();
+        user.setContainerEnvironment(containerEnvironment);
+        user.setSessionId("5F2B0C9A1E7D4A3B8C6D0E1F2A3B4C5D");
+        return user;
+    }
+}
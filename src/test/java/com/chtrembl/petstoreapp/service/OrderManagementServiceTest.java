@@ -0,0 +1,69 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.client.OrderServiceClient;
+import com.chtrembl.petstoreapp.model.Order;
+import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.User;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrderManagementServiceTest {
+
+    private static final long WINDOW_MS = 200;
+
+    private final List<Map<Long, Integer>> sentUpdates = new CopyOnWriteArrayList<>();
+    private final OrderManagementService service = service();
+
+    @Test
+    void deltasOfOneWindowAreSentAsOneUpdate() throws Exception {
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> this.service.updateOrder(1, 2, false));
+        Thread.sleep(WINDOW_MS / 4);
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> this.service.updateOrder(1, 3, false));
+        this.service.updateOrder(2, -999, false);
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(this.sentUpdates).containsExactly(Map.of(1L, 5, 2L, -999));
+    }
+
+    @Test
+    void deltasSummingToTheRemovalQuantityAreNotSentAsARemoval() throws Exception {
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> this.service.updateOrder(1, 500, false));
+        Thread.sleep(WINDOW_MS / 4);
+        this.service.updateOrder(1, -1499, false);
+        first.get(5, TimeUnit.SECONDS);
+
+        assertThat(this.sentUpdates).containsExactly(Map.of(1L, 500), Map.of(1L, -1499));
+    }
+
+    private OrderManagementService service() {
+        User sessionUser = StubDownstream.sessionUser(StubDownstream.containerEnvironment());
+        sessionUser.setTelemetryClient(mock(PetStoreTelemetryClient.class));
+        OrderServiceClient orderServiceClient = mock(OrderServiceClient.class);
+        when(orderServiceClient.createOrUpdateOrder(any())).thenAnswer(invocation -> {
+            Order order = invocation.getArgument(0);
+            this.sentUpdates.add(order.getProducts().stream()
+                    .collect(Collectors.toMap(Product::getId, Product::getQuantity)));
+            return order;
+        });
+        OrderManagementService service = new OrderManagementService(sessionUser, orderServiceClient,
+                Caffeine.newBuilder().build(), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "cartUpdateWindowMs", WINDOW_MS);
+        ReflectionTestUtils.setField(service, "cartUpdateTimeoutMs", 5_000L);
+        return service;
+    }
+}
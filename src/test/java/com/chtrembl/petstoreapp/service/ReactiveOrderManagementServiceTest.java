@@ -0,0 +1,73 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.config.feign.OrderEncoder;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Order;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+
+import java.time.Duration;
+
+import static com.chtrembl.petstoreapp.config.Constants.REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_SESSION_ID;
+import static com.chtrembl.petstoreapp.service.StubDownstream.SESSION_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReactiveOrderManagementServiceTest {
+
+    private static final String ORDER_PATH = "/petstoreorderservice/v2/store/order";
+    private static final String ORDER = """
+            {"id": "%s", "email": "alice@example.com", "products": [{"id": 10, "quantity": 2}]}
+            """.formatted(SESSION_ID);
+
+    private final StubDownstream downstream = new StubDownstream();
+    private final Cache<String, Order> sessionOrderCache = Caffeine.newBuilder().build();
+    private final ContainerEnvironment containerEnvironment = StubDownstream.containerEnvironment();
+    private final ReactiveOrderManagementService service = new ReactiveOrderManagementService(
+            StubDownstream.sessionUser(this.containerEnvironment), this.containerEnvironment,
+            this.sessionOrderCache, this.downstream.webClient(), mock(PetStoreTelemetryClient.class),
+            OrderEncoder.createOrderWriter());
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void completesEmptyForAnOrderTheOrderServiceDoesNotKnow() {
+        assertThat(this.service.retrieveOrder("unknown").blockOptional(Duration.ofSeconds(5))).isEmpty();
+        assertThat(this.service.retrieveOrder("unknown").blockOptional(Duration.ofSeconds(5))).isEmpty();
+
+        assertThat(this.downstream.requests()).hasSize(2);
+    }
+
+    @Test
+    void sendsTheUpdateWithTheCallerContextAndCachesTheResult() {
+        this.downstream.respond(ORDER_PATH, HttpStatus.OK, ORDER);
+        MDC.put(REQUEST_ID, "update-request");
+
+        Order updated = this.service.updateOrder(10, 2, false).block(Duration.ofSeconds(5));
+
+        assertThat(updated.getProducts()).singleElement().satisfies(product -> {
+            assertThat(product.getId()).isEqualTo(10);
+            assertThat(product.getQuantity()).isEqualTo(2);
+        });
+        ClientRequest request = this.downstream.requests().get(0);
+        assertThat(request.headers().getFirst(X_SESSION_ID)).isEqualTo(SESSION_ID);
+        assertThat(request.headers().getFirst(X_REQUEST_ID)).isEqualTo("update-request");
+        assertThat(StubDownstream.body(request))
+                .contains("\"id\":\"" + SESSION_ID + "\"")
+                .contains("\"quantity\":2");
+
+        assertThat(this.service.retrieveOrder(SESSION_ID).block(Duration.ofSeconds(5))).isEqualTo(updated);
+        assertThat(this.downstream.requests()).hasSize(1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.client.PetServiceClient;
+import com.chtrembl.petstoreapp.config.CatalogCacheProperties;
+import com.chtrembl.petstoreapp.config.RequestDeadline;
+import com.chtrembl.petstoreapp.exception.DeadlineExceededException;
+import com.chtrembl.petstoreapp.exception.PetServiceException;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Pet;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.chtrembl.petstoreapp.config.Constants.REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.TRACE_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_CORRELATION_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_DEADLINE;
+import static com.chtrembl.petstoreapp.config.Constants.X_REQUEST_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_SESSION_ID;
+import static com.chtrembl.petstoreapp.config.Constants.X_TRACE_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ReactivePetManagementServiceTest {
+
+    private static final String FIND_BY_STATUS = "/petstorepetservice/v2/pet/findByStatus";
+    private static final String PETS = """
+            [{"id": 1, "name": "Rex", "category": {"id": 1, "name": "Dog"}},
+             {"id": 2, "name": "Tom", "category": {"id": 2, "name": "Cat"}}]
+            """;
+
+    private final StubDownstream downstream = new StubDownstream();
+    private final PetStoreTelemetryClient telemetryClient = mock(PetStoreTelemetryClient.class);
+    private final PetCatalogCache petCatalogCache = new PetCatalogCache(
+            mock(PetServiceClient.class), new SimpleMeterRegistry(), new CatalogCacheProperties());
+    private final ContainerEnvironment containerEnvironment = StubDownstream.containerEnvironment();
+    private final ReactivePetManagementService service = new ReactivePetManagementService(
+            StubDownstream.sessionUser(this.containerEnvironment), this.containerEnvironment,
+            this.petCatalogCache, this.downstream.webClient(), this.telemetryClient);
+
+    @AfterEach
+    void tearDown() {
+        this.petCatalogCache.destroy();
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+    }
+
+    @Test
+    void concurrentMissesShareOneFetchThatCarriesNoCallerContext() {
+        this.downstream.respond(FIND_BY_STATUS, HttpStatus.OK, PETS, Duration.ofMillis(300));
+
+        MDC.put(REQUEST_ID, "first-request");
+        MDC.put(TRACE_ID, "first-trace");
+        withDeadline(System.currentTimeMillis() + 50);
+        CompletableFuture<List<Pet>> first = this.service.getPetsByCategory("Dog").collectList().toFuture();
+
+        RequestContextHolder.resetRequestAttributes();
+        MDC.put(REQUEST_ID, "second-request");
+        List<Pet> second = this.service.getPetsByCategory("Dog").collectList().block(Duration.ofSeconds(5));
+
+        assertThat(second).extracting(Pet::getName).containsExactly("Rex");
+        assertThatThrownBy(first::join).hasCauseInstanceOf(DeadlineExceededException.class);
+        assertThat(this.downstream.requests()).hasSize(1);
+        assertThat(this.downstream.requests().get(0).headers()).doesNotContainKeys(
+                X_REQUEST_ID, X_CORRELATION_ID, X_TRACE_ID, X_SESSION_ID, X_REQUEST_DEADLINE);
+    }
+
+    @Test
+    void callerGivingUpDoesNotCancelTheFetchForLaterCallers() throws Exception {
+        this.downstream.respond(FIND_BY_STATUS, HttpStatus.OK, PETS, Duration.ofMillis(200));
+
+        withDeadline(System.currentTimeMillis() + 20);
+        assertThatThrownBy(() -> this.service.getPet(2).block(Duration.ofSeconds(5)))
+                .isInstanceOf(DeadlineExceededException.class);
+        RequestContextHolder.resetRequestAttributes();
+
+        long giveUpAt = System.currentTimeMillis() + 5_000;
+        while (this.petCatalogCache.getPetCatalogIfPresent("available") == null
+                && System.currentTimeMillis() < giveUpAt) {
+            Thread.sleep(10);
+        }
+
+        assertThat(this.service.getPet(2).block(Duration.ofSeconds(5))).extracting(Pet::getName).isEqualTo("Tom");
+        assertThat(this.service.getPet(99).blockOptional(Duration.ofSeconds(5))).isEmpty();
+        assertThat(this.downstream.requests()).hasSize(1);
+    }
+
+    @Test
+    void failedFetchWithoutAStaleCatalogFailsWithPetServiceException() {
+        this.downstream.respond(FIND_BY_STATUS, HttpStatus.INTERNAL_SERVER_ERROR, "{}");
+
+        assertThatThrownBy(() -> this.service.getPetsByCategory("Dog").collectList().block(Duration.ofSeconds(5)))
+                .isInstanceOf(PetServiceException.class);
+        verify(this.telemetryClient).trackException(any());
+    }
+
+    private static void withDeadline(long deadlineEpochMs) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestDeadline.set(request, deadlineEpochMs);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+}
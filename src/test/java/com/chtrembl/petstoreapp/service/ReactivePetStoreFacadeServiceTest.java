@@ -0,0 +1,85 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.client.PetServiceClient;
+import com.chtrembl.petstoreapp.client.ProductServiceClient;
+import com.chtrembl.petstoreapp.config.CatalogCacheProperties;
+import com.chtrembl.petstoreapp.config.feign.OrderEncoder;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Order;
+import com.chtrembl.petstoreapp.model.Pet;
+import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.User;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple3;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.chtrembl.petstoreapp.service.StubDownstream.SESSION_ID;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReactivePetStoreFacadeServiceTest {
+
+    private final StubDownstream downstream = new StubDownstream()
+            .respond("/petstorepetservice/v2/pet/findByStatus", HttpStatus.OK, """
+                    [{"id": 1, "name": "Rex", "category": {"id": 1, "name": "Dog"}}]
+                    """, Duration.ofMillis(100))
+            .respond("/petstoreproductservice/v2/product/findByStatus", HttpStatus.OK, """
+                    [{"id": 10, "name": "Ball", "category": {"id": 1, "name": "Dog Toy"}, "tags": [{"id": 1, "name": "small"}]}]
+                    """, Duration.ofMillis(100))
+            .respond("/petstoreorderservice/v2/store/order/" + SESSION_ID, HttpStatus.OK, """
+                    {"id": "%s", "products": [{"id": 10, "quantity": 1}]}
+                    """.formatted(SESSION_ID), Duration.ofMillis(100));
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CatalogCacheProperties cacheProperties = new CatalogCacheProperties();
+    private final PetCatalogCache petCatalogCache =
+            new PetCatalogCache(mock(PetServiceClient.class), this.meterRegistry, this.cacheProperties);
+    private final ProductCatalogCache productCatalogCache =
+            new ProductCatalogCache(mock(ProductServiceClient.class), this.meterRegistry, this.cacheProperties);
+    private final ReactivePetStoreFacadeService facade = facade();
+
+    @AfterEach
+    void tearDown() {
+        this.petCatalogCache.destroy();
+        this.productCatalogCache.destroy();
+    }
+
+    @Test
+    void composesPetProductAndOrderCallsOfOnePage() {
+        Tuple3<Pet, List<Product>, Order> page = Mono.zip(
+                        this.facade.getPet(1),
+                        this.facade.getProducts("Dog Toy", null).collectList(),
+                        this.facade.retrieveOrder(SESSION_ID))
+                .block(Duration.ofSeconds(5));
+
+        assertThat(page.getT1().getName()).isEqualTo("Rex");
+        assertThat(page.getT2()).extracting(Product::getName).containsExactly("Ball");
+        assertThat(page.getT3().getProducts()).hasSize(1);
+        assertThat(this.downstream.requests()).hasSize(3);
+    }
+
+    private ReactivePetStoreFacadeService facade() {
+        ContainerEnvironment containerEnvironment = StubDownstream.containerEnvironment();
+        User sessionUser = StubDownstream.sessionUser(containerEnvironment);
+        WebClient webClient = this.downstream.webClient();
+        PetStoreTelemetryClient telemetryClient = mock(PetStoreTelemetryClient.class);
+        return new ReactivePetStoreFacadeService(
+                new ReactivePetManagementService(sessionUser, containerEnvironment,
+                        this.petCatalogCache, webClient, telemetryClient),
+                new ReactiveProductManagementService(sessionUser, containerEnvironment,
+                        this.productCatalogCache, webClient, telemetryClient),
+                new ReactiveOrderManagementService(sessionUser, containerEnvironment,
+                        Caffeine.newBuilder().build(), webClient, telemetryClient,
+                        OrderEncoder.createOrderWriter()));
+    }
+}
@@ -0,0 +1,74 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.client.ProductServiceClient;
+import com.chtrembl.petstoreapp.config.CatalogCacheProperties;
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.Product;
+import com.chtrembl.petstoreapp.model.Tag;
+import com.chtrembl.petstoreapp.telemetry.PetStoreTelemetryClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReactiveProductManagementServiceTest {
+
+    private static final String FIND_BY_STATUS = "/petstoreproductservice/v2/product/findByStatus";
+    private static final String PRODUCTS = """
+            [{"id": 10, "name": "Ball", "category": {"id": 1, "name": "Dog Toy"}, "tags": [{"id": 1, "name": "small"}]},
+             {"id": 11, "name": "Rope", "category": {"id": 1, "name": "Dog Toy"}, "tags": [{"id": 2, "name": "large"}]}]
+            """;
+
+    private final StubDownstream downstream = new StubDownstream();
+    private final ProductCatalogCache productCatalogCache = new ProductCatalogCache(
+            mock(ProductServiceClient.class), new SimpleMeterRegistry(), new CatalogCacheProperties());
+    private final ContainerEnvironment containerEnvironment = StubDownstream.containerEnvironment();
+    private final ReactiveProductManagementService service = new ReactiveProductManagementService(
+            StubDownstream.sessionUser(this.containerEnvironment), this.containerEnvironment,
+            this.productCatalogCache, this.downstream.webClient(), mock(PetStoreTelemetryClient.class));
+
+    @AfterEach
+    void tearDown() {
+        this.productCatalogCache.destroy();
+    }
+
+    @Test
+    void servesProductsOfTheCategoryWithTheRequestedSizeFromOneFetch() {
+        this.downstream.respond(FIND_BY_STATUS, HttpStatus.OK, PRODUCTS);
+
+        List<Product> large = this.service.getProductsByCategory("Dog Toy", List.of(tag("large")))
+                .collectList().block(Duration.ofSeconds(5));
+        List<Product> small = this.service.getProductsByCategory("Dog Toy", null)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertThat(large).extracting(Product::getName).containsExactly("Rope");
+        assertThat(small).extracting(Product::getName).containsExactly("Ball");
+        assertThat(this.downstream.requests()).hasSize(1);
+    }
+
+    @Test
+    void servesTheLastGoodIndexWhenTheReloadFails() {
+        this.downstream.respond(FIND_BY_STATUS, HttpStatus.OK, PRODUCTS);
+        this.service.getProductsByCategory("Dog Toy", null).collectList().block(Duration.ofSeconds(5));
+
+        this.productCatalogCache.invalidate("available");
+        this.downstream.respond(FIND_BY_STATUS, HttpStatus.INTERNAL_SERVER_ERROR, "{}");
+        List<Product> small = this.service.getProductsByCategory("Dog Toy", null)
+                .collectList().block(Duration.ofSeconds(5));
+
+        assertThat(small).extracting(Product::getName).containsExactly("Ball");
+        assertThat(this.downstream.requests()).hasSize(2);
+    }
+
+    private static Tag tag(String name) {
+        Tag tag = new Tag();
+        tag.setName(name);
+        return tag;
+    }
+}
@@ -0,0 +1,86 @@
+package com.chtrembl.petstoreapp.service;
+
+import com.chtrembl.petstoreapp.model.ContainerEnvironment;
+import com.chtrembl.petstoreapp.model.User;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Downstream services answered in memory by path through a {@link WebClient}, recording every
+ * request the reactive services send.
+ */
+final class StubDownstream {
+
+    static final String PET_SERVICE_URL = "http://pet-service";
+    static final String PRODUCT_SERVICE_URL = "http://product-service";
+    static final String ORDER_SERVICE_URL = "http://order-service";
+    static final String SESSION_ID = "5F2B0C9A1E7D4A3B8C6D0E1F2A3B4C5D";
+
+    private final Map<String, Mono<ClientResponse>> responses = new ConcurrentHashMap<>();
+    private final List<ClientRequest> requests = new CopyOnWriteArrayList<>();
+
+    StubDownstream respond(String path, HttpStatus status, String json) {
+        return respond(path, status, json, Duration.ZERO);
+    }
+
+    StubDownstream respond(String path, HttpStatus status, String json, Duration delay) {
+        this.responses.put(path, Mono.delay(delay).map(tick -> ClientResponse.create(status)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(json)
+                .build()));
+        return this;
+    }
+
+    WebClient webClient() {
+        return WebClient.builder()
+                .exchangeFunction(request -> {
+                    this.requests.add(request);
+                    return this.responses.getOrDefault(request.url().getPath(),
+                            Mono.just(ClientResponse.create(HttpStatus.NOT_FOUND).build()));
+                })
+                .build();
+    }
+
+    List<ClientRequest> requests() {
+        return this.requests;
+    }
+
+    static String body(ClientRequest request) {
+        MockClientHttpRequest http = new MockClientHttpRequest(HttpMethod.POST, request.url());
+        request.writeTo(http, ExchangeStrategies.withDefaults()).block();
+        return http.getBodyAsString().block();
+    }
+
+    static ContainerEnvironment containerEnvironment() {
+        ContainerEnvironment containerEnvironment = new ContainerEnvironment();
+        containerEnvironment.setAppDate("2025-01-01");
+        containerEnvironment.setAppVersion("1.0.0");
+        containerEnvironment.setContainerHostName("petstoreapp-0");
+        containerEnvironment.setPetStorePetServiceURL(PET_SERVICE_URL);
+        containerEnvironment.setPetStoreProductServiceURL(PRODUCT_SERVICE_URL);
+        containerEnvironment.setPetStoreOrderServiceURL(ORDER_SERVICE_URL);
+        return containerEnvironment;
+    }
+
+    static User sessionUser(ContainerEnvironment containerEnvironment) {
+        User user = new User();
+        user.setContainerEnvironment(containerEnvironment);
+        user.setSessionId(SESSION_ID);
+        user.setEmail("alice@example.com");
+        return user;
+    }
+}
@@ -0,0 +1,61 @@
+package com.chtrembl.petstoreapp.telemetry;
+
+import com.chtrembl.petstoreapp.telemetry.MetricAggregator.MetricKey;
+import com.chtrembl.petstoreapp.telemetry.MetricAggregator.Summary;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MetricAggregatorTest {
+
+    private final MetricAggregator aggregator = new MetricAggregator(2);
+
+    @Test
+    void samplesWithEqualPropertiesShareOneMetric() {
+        Map<String, String> hashed = new HashMap<>(Map.of("status", "available", "client", "pet-service"));
+        Map<String, String> linked = new LinkedHashMap<>(Map.of("client", "pet-service", "status", "available"));
+
+        assertThat(this.aggregator.record("catalog.size", hashed, 3, 1, 3, 3, () -> null)).isTrue();
+        assertThat(this.aggregator.record("catalog.size", linked, 5, 1, 5, 5, () -> null)).isTrue();
+
+        assertThat(this.aggregator.size()).isEqualTo(1);
+        assertThat(flush()).containsExactly(Map.entry(
+                new MetricKey("catalog.size", Map.of("client", "pet-service", "status", "available")),
+                new Summary(2, 8, 3, 5, null)));
+    }
+
+    @Test
+    void propertiesWithNullsAreRecordedWithoutThem() {
+        Map<String, String> properties = new HashMap<>();
+        properties.put("client", "pet-service");
+        properties.put("status", null);
+
+        assertThat(this.aggregator.record("catalog.size", properties, 3, 1, 3, 3, () -> null)).isTrue();
+        assertThat(this.aggregator.record("catalog.size", properties, 5, 1, 5, 5, () -> null)).isTrue();
+
+        assertThat(flush()).containsOnlyKeys(new MetricKey("catalog.size", Map.of("client", "pet-service")));
+    }
+
+    @Test
+    void refusesNewMetricsBeyondTheLimitUntilIdleOnesAreForgotten() {
+        assertThat(this.aggregator.record("a", Map.of("k", "1"), 1, 1, 1, 1, () -> null)).isTrue();
+        assertThat(this.aggregator.record("a", Map.of("k", "2"), 1, 1, 1, 1, () -> null)).isTrue();
+        assertThat(this.aggregator.record("b", 1, () -> null)).isFalse();
+
+        flush();
+        flush();
+
+        assertThat(this.aggregator.size()).isZero();
+        assertThat(this.aggregator.record("b", 1, () -> null)).isTrue();
+    }
+
+    private Map<MetricKey, Summary> flush() {
+        Map<MetricKey, Summary> summaries = new HashMap<>();
+        this.aggregator.flush(summaries::put);
+        return summaries;
+    }
+}